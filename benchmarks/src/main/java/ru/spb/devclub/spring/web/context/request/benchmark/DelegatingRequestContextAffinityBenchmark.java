@@ -0,0 +1,102 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.AffinityDelegatingRequestContextExecutorService;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a request that runs a pipeline of {@code tasks} tiny tasks, each reading a request
+ * attribute, through a {@link DelegatingRequestContextExecutorService} over a fixed thread pool,
+ * where each task sets and restores the {@link RequestAttributes}, compared with
+ * {@link AffinityDelegatingRequestContextExecutorService}, whose worker leaves them bound between
+ * the tasks of the request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextAffinityBenchmark {
+
+    @Param({"pool", "affinity"})
+    public String executor;
+
+    @Param({"2"})
+    public int workers;
+
+    @Param({"64"})
+    public int tasks;
+
+    private DelegatingRequestContextExecutorService service;
+    private final Callable<Object> task = () -> RequestContextHolder.currentRequestAttributes()
+            .getAttribute("user", RequestAttributes.SCOPE_REQUEST);
+
+    @Setup
+    public void setUp() {
+        service = "affinity".equals(executor)
+                ? new AffinityDelegatingRequestContextExecutorService(workers)
+                : new DelegatingRequestContextExecutorService(Executors.newFixedThreadPool(workers));
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdownNow();
+    }
+
+    /**
+     * Binds the {@link RequestAttributes} on each JMH thread, as a servlet container does
+     * for a request thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RequestAttributes attributes = new StubRequestAttributes();
+            attributes.setAttribute("user", "user", RequestAttributes.SCOPE_REQUEST);
+            RequestContextHolder.setRequestAttributes(attributes);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    @Benchmark
+    public Object pipeline(RequestThread thread) throws Exception {
+        List<Future<Object>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(service.submit(task));
+        }
+        Object last = null;
+        for (Future<Object> future : futures) {
+            last = future.get();
+        }
+        return last;
+    }
+
+}
@@ -0,0 +1,114 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput of {@link DelegatingRequestContextExecutorService#submit(Callable)}
+ * and {@link DelegatingRequestContextExecutorService#invokeAll(java.util.Collection)}
+ * compared with the raw {@link ExecutorService} on pools of 1 to 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextExecutorServiceBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int poolSize;
+
+    @Param({"16"})
+    public int batchSize;
+
+    private ExecutorService rawExecutor;
+    private ExecutorService delegatingExecutor;
+    private List<Callable<Object>> batch;
+
+    @Setup
+    public void setUp() {
+        rawExecutor = Executors.newFixedThreadPool(poolSize);
+        delegatingExecutor = new DelegatingRequestContextExecutorService(Executors.newFixedThreadPool(poolSize));
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(RequestContextHolder::getRequestAttributes);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        rawExecutor.shutdownNow();
+        delegatingExecutor.shutdownNow();
+    }
+
+    /**
+     * Binds the {@link RequestAttributes} on each JMH thread, as a servlet container does
+     * for a request thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    @Benchmark
+    public Object submit_raw(RequestThread thread) throws Exception {
+        return rawExecutor.submit(RequestContextHolder::getRequestAttributes).get();
+    }
+
+    @Benchmark
+    public Object submit_delegating(RequestThread thread) throws Exception {
+        return delegatingExecutor.submit(RequestContextHolder::getRequestAttributes).get();
+    }
+
+    @Benchmark
+    public Object invokeAll_raw(RequestThread thread) throws Exception {
+        return await(rawExecutor.invokeAll(batch));
+    }
+
+    @Benchmark
+    public Object invokeAll_delegating(RequestThread thread) throws Exception {
+        return await(delegatingExecutor.invokeAll(batch));
+    }
+
+    private static Object await(List<Future<Object>> futures) throws Exception {
+        Object last = null;
+        for (Future<Object> future : futures) {
+            last = future.get();
+        }
+        return last;
+    }
+
+}
@@ -0,0 +1,123 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutorService;
+import ru.spb.devclub.spring.web.context.request.concurrent.FairDelegatingRequestContextExecutorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a small request that submits {@code smallTasks} tasks while a large request has
+ * {@code largeTasks} tasks queued, through a {@link DelegatingRequestContextExecutorService},
+ * which runs the tasks in the order they were submitted, compared with
+ * {@link FairDelegatingRequestContextExecutorService}, which takes turns between the requests.
+ * Read the p0.99 percentile of the output.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextFairnessBenchmark {
+
+    @Param({"fifo", "fair"})
+    public String executor;
+
+    @Param({"2"})
+    public int poolSize;
+
+    @Param({"500"})
+    public int largeTasks;
+
+    @Param({"2"})
+    public int smallTasks;
+
+    @Param({"10000"})
+    public int tokensPerTask;
+
+    private DelegatingRequestContextExecutorService service;
+    private final RequestAttributes large = new StubRequestAttributes();
+    private final RequestAttributes small = new StubRequestAttributes();
+    private final List<Future<?>> queued = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        service = "fair".equals(executor)
+                ? new FairDelegatingRequestContextExecutorService(Executors.newFixedThreadPool(poolSize), poolSize)
+                : new DelegatingRequestContextExecutorService(Executors.newFixedThreadPool(poolSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdownNow();
+    }
+
+    /**
+     * Queues the tasks of the large request before each small request arrives.
+     */
+    @Setup(Level.Invocation)
+    public void submitLarge() {
+        RequestContextHolder.setRequestAttributes(large);
+        try {
+            for (int i = 0; i < largeTasks; i++) {
+                queued.add(service.submit(this::work));
+            }
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    /**
+     * Lets the large request complete before the next invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void awaitLarge() throws Exception {
+        for (Future<?> future : queued) {
+            future.get();
+        }
+        queued.clear();
+    }
+
+    @Benchmark
+    public Object smallRequest() throws Exception {
+        RequestContextHolder.setRequestAttributes(small);
+        try {
+            List<Future<?>> futures = new ArrayList<>(smallTasks);
+            for (int i = 0; i < smallTasks; i++) {
+                futures.add(service.submit(this::work));
+            }
+            Object last = null;
+            for (Future<?> future : futures) {
+                last = future.get();
+            }
+            return last;
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private void work() {
+        Blackhole.consumeCPU(tokensPerTask);
+    }
+
+}
@@ -0,0 +1,103 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a scatter/gather batch through
+ * {@link DelegatingRequestContextExecutorService#invokeAll(java.util.Collection)}, which wraps
+ * each task, compared with
+ * {@link DelegatingRequestContextExecutorService#invokeAllBatched(java.util.Collection, int)},
+ * which sets up the {@link RequestAttributes} once per worker. Run with {@code -prof gc}
+ * to compare the allocation per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextInvokeAllBenchmark {
+
+    @Param({"8"})
+    public int poolSize;
+
+    @Param({"16", "128", "1024"})
+    public int batchSize;
+
+    private DelegatingRequestContextExecutorService executor;
+    private List<Callable<Object>> batch;
+
+    @Setup
+    public void setUp() {
+        executor = new DelegatingRequestContextExecutorService(Executors.newFixedThreadPool(poolSize));
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(RequestContextHolder::getRequestAttributes);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Binds the {@link RequestAttributes} on each JMH thread, as a servlet container does
+     * for a request thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    @Benchmark
+    public Object invokeAll(RequestThread thread) throws Exception {
+        return await(executor.invokeAll(batch));
+    }
+
+    @Benchmark
+    public Object invokeAllBatched(RequestThread thread) throws Exception {
+        return await(executor.invokeAllBatched(batch, poolSize));
+    }
+
+    private static Object await(List<Future<Object>> futures) throws Exception {
+        Object last = null;
+        for (Future<Object> future : futures) {
+            last = future.get();
+        }
+        return last;
+    }
+
+}
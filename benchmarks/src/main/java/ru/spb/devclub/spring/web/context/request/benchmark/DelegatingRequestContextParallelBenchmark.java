@@ -0,0 +1,112 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutorService;
+import ru.spb.devclub.spring.web.context.request.concurrent.RequestContextParallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of processing a per-request collection through
+ * {@link DelegatingRequestContextExecutorService#invokeAll(java.util.Collection)} with a task per
+ * element, compared with {@link RequestContextParallel#map(java.util.Collection, java.util.function.Function)},
+ * which sets up the {@link RequestAttributes} once per worker and takes the elements in chunks.
+ * Each element burns {@code tokens} of CPU. Run with {@code -prof gc} to compare the allocation per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextParallelBenchmark {
+
+    @Param({"4"})
+    public int poolSize;
+
+    @Param({"10000"})
+    public int elements;
+
+    @Param({"20"})
+    public int tokens;
+
+    private DelegatingRequestContextExecutorService executor;
+    private RequestContextParallel parallel;
+    private List<Integer> rows;
+
+    @Setup
+    public void setUp() {
+        executor = new DelegatingRequestContextExecutorService(Executors.newFixedThreadPool(poolSize));
+        parallel = new RequestContextParallel(executor, poolSize);
+        rows = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            rows.add(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Binds the {@link RequestAttributes} on each JMH thread, as a servlet container does
+     * for a request thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    @Benchmark
+    public void invokeAll(RequestThread thread, Blackhole blackhole) throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>(rows.size());
+        for (Integer row : rows) {
+            tasks.add(() -> score(row));
+        }
+        for (Future<Integer> future : executor.invokeAll(tasks)) {
+            blackhole.consume(future.get());
+        }
+    }
+
+    @Benchmark
+    public List<Integer> parallel(RequestThread thread) throws Exception {
+        return parallel.map(rows, this::score);
+    }
+
+    private Integer score(Integer row) {
+        Blackhole.consumeCPU(tokens);
+        return row;
+    }
+
+}
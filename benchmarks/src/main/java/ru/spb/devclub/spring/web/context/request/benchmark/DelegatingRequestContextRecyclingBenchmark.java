@@ -0,0 +1,82 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutor;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrapper recycling of {@code DelegatingRequestContextExecutor.setWrapperRecycling(int)}: {@code inline}
+ * runs every task as soon as it is submitted, {@code batch} queues {@value #BATCH} tasks before running
+ * them, so that as many wrappers are outstanding at once. A {@code recycling} of 0 allocates a wrapper per
+ * task. Run with {@code -prof gc} to see the bytes allocated per task.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DelegatingRequestContextRecyclingBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"0", "1024"})
+    public int recycling;
+
+    private final Runnable task = () -> {
+    };
+
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>(BATCH);
+
+    private DelegatingRequestContextExecutor inlineExecutor;
+    private DelegatingRequestContextExecutor queueingExecutor;
+
+    @Setup
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        inlineExecutor = new DelegatingRequestContextExecutor(Runnable::run);
+        queueingExecutor = new DelegatingRequestContextExecutor(queue::add);
+        if (recycling > 0) {
+            inlineExecutor.setWrapperRecycling(recycling);
+            queueingExecutor.setWrapperRecycling(recycling);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void inline() {
+        inlineExecutor.execute(task);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batch() {
+        for (int i = 0; i < BATCH; i++) {
+            queueingExecutor.execute(task);
+        }
+        Runnable queued;
+        while ((queued = queue.poll()) != null) {
+            queued.run();
+        }
+    }
+
+}
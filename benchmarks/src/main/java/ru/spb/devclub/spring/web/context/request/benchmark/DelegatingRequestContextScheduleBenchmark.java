@@ -0,0 +1,102 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextScheduledExecutorService;
+import ru.spb.devclub.spring.web.context.request.concurrent.HashedWheelDelegatingRequestContextScheduledExecutorService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scheduling a per-request timeout and cancelling it before it fires, with
+ * {@code pending} other timeouts outstanding, through a {@link ScheduledExecutorService}
+ * backed by the heap of a {@link ScheduledThreadPoolExecutor}, which keeps cancelled tasks
+ * until they are due unless {@code removeOnCancel} is set, compared with
+ * {@link HashedWheelDelegatingRequestContextScheduledExecutorService}. The {@code heap} scheduler
+ * may run out of memory in a long run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingRequestContextScheduleBenchmark {
+
+    @Param({"heap", "heapRemoveOnCancel", "wheel"})
+    public String scheduler;
+
+    @Param({"10000"})
+    public int pending;
+
+    private ScheduledExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        if ("wheel".equals(scheduler)) {
+            executor = new HashedWheelDelegatingRequestContextScheduledExecutorService(Executors.newFixedThreadPool(1));
+        } else {
+            ScheduledThreadPoolExecutor heap = new ScheduledThreadPoolExecutor(1);
+            heap.setRemoveOnCancelPolicy("heapRemoveOnCancel".equals(scheduler));
+            executor = new DelegatingRequestContextScheduledExecutorService(heap);
+        }
+        RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        try {
+            for (int i = 0; i < pending; i++) {
+                executor.schedule(() -> {
+                }, 1L + i % 60, TimeUnit.HOURS);
+            }
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Binds the {@link RequestAttributes} on each JMH thread, as a servlet container does
+     * for a request thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RequestContextHolder.setRequestAttributes(new StubRequestAttributes());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel(RequestThread thread) {
+        ScheduledFuture<?> timeout = executor.schedule(() -> {
+        }, 30L, TimeUnit.SECONDS);
+        return timeout.cancel(false);
+    }
+
+}
@@ -0,0 +1,91 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextCallable;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextRunnable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-task cost of {@link DelegatingRequestContextRunnable#run()} and
+ * {@link DelegatingRequestContextCallable#call()} compared with the raw tasks.
+ * The wrappers are created once, so only the set/restore of
+ * {@link RequestContextHolder} is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DelegatingRequestContextTaskBenchmark {
+
+    private Runnable rawRunnable;
+    private Runnable wrappedRunnable;
+    private Runnable inheritableRunnable;
+
+    private Callable<Object> rawCallable;
+    private Callable<Object> wrappedCallable;
+    private Callable<Object> inheritableCallable;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        RequestAttributes attributes = new StubRequestAttributes();
+        rawRunnable = () -> blackhole.consume(attributes);
+        wrappedRunnable = DelegatingRequestContextRunnable.create(rawRunnable, attributes);
+        inheritableRunnable = DelegatingRequestContextRunnable.createInheritable(rawRunnable, attributes);
+        rawCallable = () -> attributes;
+        wrappedCallable = DelegatingRequestContextCallable.create(rawCallable, attributes);
+        inheritableCallable = DelegatingRequestContextCallable.createInheritable(rawCallable, attributes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void runnable_raw() {
+        rawRunnable.run();
+    }
+
+    @Benchmark
+    public void runnable_delegating() {
+        wrappedRunnable.run();
+    }
+
+    @Benchmark
+    public void runnable_delegatingInheritable() {
+        inheritableRunnable.run();
+    }
+
+    @Benchmark
+    public Object callable_raw() throws Exception {
+        return rawCallable.call();
+    }
+
+    @Benchmark
+    public Object callable_delegating() throws Exception {
+        return wrappedCallable.call();
+    }
+
+    @Benchmark
+    public Object callable_delegatingInheritable() throws Exception {
+        return inheritableCallable.call();
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.spb.devclub.spring.web.context.request.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capture cost of {@code AbstractDelegatingRequestContextSupport.wrap(...)}: the delegate
+ * {@link Executor} only hands the wrapped task to the {@link Blackhole}, so the score is
+ * the lookup of the {@link RequestAttributes} plus the allocation of the wrapper.
+ * Run with {@code -prof gc} to see the bytes allocated per task.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DelegatingRequestContextWrapBenchmark {
+
+    private final Runnable task = () -> {
+    };
+
+    private Executor currentAttributesExecutor;
+    private Executor specifiedAttributesExecutor;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        RequestAttributes attributes = new StubRequestAttributes();
+        RequestContextHolder.setRequestAttributes(attributes);
+        Executor consumer = blackhole::consume;
+        currentAttributesExecutor = new DelegatingRequestContextExecutor(consumer);
+        specifiedAttributesExecutor = new DelegatingRequestContextExecutor(consumer, attributes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void wrap_currentAttributes() {
+        currentAttributesExecutor.execute(task);
+    }
+
+    @Benchmark
+    public void wrap_specifiedAttributes() {
+        specifiedAttributesExecutor.execute(task);
+    }
+
+}
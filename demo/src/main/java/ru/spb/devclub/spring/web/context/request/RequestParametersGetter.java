@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -13,8 +12,8 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 @Slf4j
 @Component
@@ -41,21 +40,21 @@ public class RequestParametersGetter {
     }
 
     @Async
-    public Future<String> getParamsAsync() {
-        return new AsyncResult<>(getParams());
+    public CompletableFuture<String> getParamsAsync() {
+        return CompletableFuture.completedFuture(getParams());
     }
 
     @Async("asyncTaskExecutorWithRequestContext")
-    public Future<String> getParamsAsyncWithContext() {
-        return new AsyncResult<>(getParams());
+    public CompletableFuture<String> getParamsAsyncWithContext() {
+        return CompletableFuture.completedFuture(getParams());
     }
 
-    public Future<String> getParamsFromExecutor() {
-        return executor.submit(this::getParams);
+    public CompletableFuture<String> getParamsFromExecutor() {
+        return CompletableFuture.supplyAsync(this::getParams, executor);
     }
 
-    public Future<String> getParamsFromExecutorWithContext() {
-        return executorWithRequestContext.submit(this::getParams);
+    public CompletableFuture<String> getParamsFromExecutorWithContext() {
+        return CompletableFuture.supplyAsync(this::getParams, executorWithRequestContext);
     }
 
 }
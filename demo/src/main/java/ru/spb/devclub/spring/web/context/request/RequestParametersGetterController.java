@@ -1,10 +1,13 @@
 package ru.spb.devclub.spring.web.context.request;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/getter/params")
@@ -18,28 +21,42 @@ public class RequestParametersGetterController {
         return getter.getParams();
     }
 
-    @SneakyThrows
     @GetMapping("/async")
-    public String getParamsAsync() {
-        return getter.getParamsAsync().get();
+    public CompletableFuture<String> getParamsAsync() {
+        return getter.getParamsAsync();
     }
 
-    @SneakyThrows
     @GetMapping("/async/with-context")
-    public String getParamsAsyncWithContext() {
-        return getter.getParamsAsyncWithContext().get();
+    public CompletableFuture<String> getParamsAsyncWithContext() {
+        return getter.getParamsAsyncWithContext();
     }
 
-    @SneakyThrows
     @GetMapping("/executors")
-    public String getParamsFromExecutor() {
-        return getter.getParamsFromExecutor().get();
+    public CompletableFuture<String> getParamsFromExecutor() {
+        return getter.getParamsFromExecutor();
     }
 
-    @SneakyThrows
     @GetMapping("/executors/with-context")
-    public String getParamsFromExecutorWithContext() {
-        return getter.getParamsFromExecutorWithContext().get();
+    public CompletableFuture<String> getParamsFromExecutorWithContext() {
+        return getter.getParamsFromExecutorWithContext();
+    }
+
+    @GetMapping("/callable")
+    public Callable<String> getParamsFromCallable() {
+        return getter::getParams;
+    }
+
+    @GetMapping("/deferred/with-context")
+    public DeferredResult<String> getParamsDeferredWithContext() {
+        DeferredResult<String> result = new DeferredResult<>();
+        getter.getParamsFromExecutorWithContext().whenComplete((params, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+            } else {
+                result.setResult(params);
+            }
+        });
+        return result;
     }
 
 }
@@ -0,0 +1,87 @@
+package ru.spb.devclub.spring.web.context.request;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * <p>
+ * A {@link ThreadLocalAccessor} of the {@link RequestContextHolder} for the
+ * <a href="https://github.com/micrometer-metrics/context-propagation">Micrometer Context Propagation</a>
+ * library, so that {@code ContextSnapshot}-wrapped executors and Reactor's automatic context
+ * propagation carry the {@link RequestAttributes} without extra wrappers.
+ * </p>
+ * <p>
+ * It has the semantics of
+ * {@link ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextRunnable}:
+ * the captured {@link RequestAttributes} are set with the {@code inheritable} flag and the previous
+ * ones are restored afterwards, or the holder is reset if there were none.
+ * </p>
+ * <p>
+ * An accessor with {@code inheritable=false} is registered through {@link java.util.ServiceLoader};
+ * register {@code new RequestContextThreadLocalAccessor(true)} on the
+ * {@code io.micrometer.context.ContextRegistry} instead to set the attributes inheritable.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class RequestContextThreadLocalAccessor implements ThreadLocalAccessor<RequestAttributes> {
+
+    /**
+     * The key of the {@link RequestAttributes} in a context.
+     */
+    public static final String KEY = RequestAttributes.class.getName();
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link RequestContextThreadLocalAccessor}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public RequestContextThreadLocalAccessor(boolean inheritable) {
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link RequestContextThreadLocalAccessor} with {@code inheritable=false}.
+     */
+    public RequestContextThreadLocalAccessor() {
+        this(false);
+    }
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public RequestAttributes getValue() {
+        return RequestContextHolder.getRequestAttributes();
+    }
+
+    @Override
+    public void setValue(RequestAttributes value) {
+        RequestContextHolder.setRequestAttributes(value, this.inheritable);
+    }
+
+    @Override
+    public void setValue() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Override
+    public void restore(RequestAttributes previousValue) {
+        setValue(previousValue);
+    }
+
+    @Override
+    public void restore() {
+        setValue();
+    }
+
+}
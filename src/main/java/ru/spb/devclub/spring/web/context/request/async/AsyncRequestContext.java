@@ -0,0 +1,134 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.spb.devclub.spring.web.context.request.concurrent.ReferenceCountedRequestAttributes;
+
+/**
+ * <p>
+ * The {@link RequestAttributes} of a request whose handler has started async processing, captured on the
+ * request thread and kept in a request attribute until the async processing completes.
+ * </p>
+ * <p>
+ * The {@link ServletRequestAttributes} of the request are replaced by its
+ * {@link ReferenceCountedRequestAttributes}, and a reference is held until the async processing completes,
+ * so that they stay usable after the request thread has returned to the container.
+ * </p>
+ *
+ * @since 1.1
+ */
+final class AsyncRequestContext {
+
+    private static final String ATTRIBUTE_NAME = AsyncRequestContext.class.getName();
+
+    private final RequestAttributes requestAttributes;
+
+    /**
+     * The {@link ReferenceCountedRequestAttributes} a reference is held on or null.
+     */
+    private final ReferenceCountedRequestAttributes retained;
+
+    /**
+     * The {@link RequestAttributes} of the async thread before {@link #bind(boolean)}, since one async
+     * thread at a time runs the concurrent handling of a request.
+     */
+    private RequestAttributes previousRequestAttributes;
+
+    /**
+     * Whether the async thread holds a reference on {@link #retained} from {@link #bind(boolean)}.
+     */
+    private boolean bound;
+
+    private AsyncRequestContext(RequestAttributes requestAttributes, ReferenceCountedRequestAttributes retained) {
+        this.requestAttributes = requestAttributes;
+        this.retained = retained;
+    }
+
+    /**
+     * Captures the {@link RequestAttributes} of the current thread into the request.
+     *
+     * @param request the request
+     */
+    static void capture(NativeWebRequest request) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null || get(request) != null) {
+            return;
+        }
+        ReferenceCountedRequestAttributes retained = null;
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            ReferenceCountedRequestAttributes counted =
+                    ReferenceCountedRequestAttributes.of((ServletRequestAttributes) requestAttributes);
+            requestAttributes = counted;
+            if (counted.retain()) {
+                retained = counted;
+            }
+        }
+        request.setAttribute(ATTRIBUTE_NAME, new AsyncRequestContext(requestAttributes, retained),
+                RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Returns the {@link AsyncRequestContext} captured into the request.
+     *
+     * @param request the request
+     * @return captured {@link AsyncRequestContext} or null
+     */
+    static AsyncRequestContext get(NativeWebRequest request) {
+        Object context = request.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        return context instanceof AsyncRequestContext ? (AsyncRequestContext) context : null;
+    }
+
+    /**
+     * Removes the {@link AsyncRequestContext} from the request and releases its reference.
+     *
+     * @param request the request
+     */
+    static void release(NativeWebRequest request) {
+        AsyncRequestContext context = get(request);
+        if (context != null) {
+            request.removeAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+            if (context.retained != null) {
+                context.retained.release();
+            }
+        }
+    }
+
+    RequestAttributes getRequestAttributes() {
+        return this.requestAttributes;
+    }
+
+    /**
+     * Sets up the captured {@link RequestAttributes} on the current thread until {@link #restore(boolean)}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    void bind(boolean inheritable) {
+        this.previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+        this.bound = this.retained != null && this.retained.retain();
+        RequestContextHolder.setRequestAttributes(this.requestAttributes, inheritable);
+    }
+
+    /**
+     * Restores the {@link RequestAttributes} the current thread had before {@link #bind(boolean)}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    void restore(boolean inheritable) {
+        RequestAttributes previous = this.previousRequestAttributes;
+        this.previousRequestAttributes = null;
+        if (previous == null) {
+            RequestContextHolder.resetRequestAttributes();
+        } else {
+            RequestContextHolder.setRequestAttributes(previous, inheritable);
+        }
+        if (this.bound) {
+            this.bound = false;
+            this.retained.release();
+        }
+    }
+
+}
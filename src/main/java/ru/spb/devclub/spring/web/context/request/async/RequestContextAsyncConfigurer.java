@@ -0,0 +1,45 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * A {@link WebMvcConfigurer} which registers a {@link RequestContextCallableProcessingInterceptor}
+ * and a {@link RequestContextDeferredResultProcessingInterceptor} for Spring MVC async request processing.
+ *
+ * @since 1.1
+ */
+public class RequestContextAsyncConfigurer implements WebMvcConfigurer {
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link RequestContextAsyncConfigurer}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     *                    for the {@link java.util.concurrent.Callable}s returned by handlers
+     */
+    public RequestContextAsyncConfigurer(boolean inheritable) {
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link RequestContextAsyncConfigurer} with {@code inheritable=false}.
+     */
+    public RequestContextAsyncConfigurer() {
+        this(false);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new RequestContextCallableProcessingInterceptor(this.inheritable));
+        configurer.registerDeferredResultInterceptors(new RequestContextDeferredResultProcessingInterceptor());
+    }
+
+}
@@ -0,0 +1,79 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextCallable;
+import ru.spb.devclub.spring.web.context.request.concurrent.ReferenceCountedRequestAttributes;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * A {@link CallableProcessingInterceptor} which runs the {@link Callable} returned by a handler, directly
+ * or in a {@link org.springframework.web.context.request.async.WebAsyncTask}, with the
+ * {@link RequestAttributes} of the request thread, like a {@link DelegatingRequestContextCallable},
+ * instead of the new ones Spring MVC sets up on the async thread.
+ * </p>
+ * <p>
+ * The {@link Callable} runs with the {@link ReferenceCountedRequestAttributes} of the request, which stay
+ * usable after the request thread has returned to the container. Request scope destruction callbacks
+ * registered while it runs, such as those of request scoped beans it creates, run when the async
+ * processing completes rather than being lost.
+ * </p>
+ *
+ * @see RequestContextAsyncConfigurer
+ * @since 1.1
+ */
+public class RequestContextCallableProcessingInterceptor implements CallableProcessingInterceptor {
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link RequestContextCallableProcessingInterceptor}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public RequestContextCallableProcessingInterceptor(boolean inheritable) {
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link RequestContextCallableProcessingInterceptor} with {@code inheritable=false}.
+     */
+    public RequestContextCallableProcessingInterceptor() {
+        this(false);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        AsyncRequestContext.capture(request);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        AsyncRequestContext context = AsyncRequestContext.get(request);
+        if (context != null) {
+            context.bind(this.inheritable);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        AsyncRequestContext context = AsyncRequestContext.get(request);
+        if (context != null) {
+            context.restore(this.inheritable);
+        }
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        AsyncRequestContext.release(request);
+    }
+
+}
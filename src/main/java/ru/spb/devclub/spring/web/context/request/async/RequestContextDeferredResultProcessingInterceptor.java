@@ -0,0 +1,40 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextExecutor;
+import ru.spb.devclub.spring.web.context.request.concurrent.ReferenceCountedRequestAttributes;
+
+/**
+ * <p>
+ * A {@link DeferredResultProcessingInterceptor} which keeps the {@link RequestAttributes} of the request
+ * usable until its {@link DeferredResult} completes.
+ * </p>
+ * <p>
+ * A {@link DeferredResult} is set by a thread of the application's choice, so the tasks that produce it
+ * should be submitted to a delegating executor with
+ * {@link DelegatingRequestContextExecutor#setDeferRequestDestruction(boolean) deferred destruction}.
+ * They run with the {@link ReferenceCountedRequestAttributes} of the request, on which this interceptor
+ * holds a reference from the start of the async processing until it completes, so the request scope
+ * is not destroyed between two tasks of a chain, but only after the result is set, the request
+ * times out or fails.
+ * </p>
+ *
+ * @see RequestContextAsyncConfigurer
+ * @since 1.1
+ */
+public class RequestContextDeferredResultProcessingInterceptor implements DeferredResultProcessingInterceptor {
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        AsyncRequestContext.capture(request);
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        AsyncRequestContext.release(request);
+    }
+
+}
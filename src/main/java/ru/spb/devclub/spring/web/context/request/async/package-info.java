@@ -0,0 +1,9 @@
+/**
+ * Spring MVC async request processing interceptors.
+ *
+ * @see <a href="https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/web/context/request/async/package-summary.html">
+ * org.springframework.security.web.context.request.async
+ * </a>
+ * @since 1.1
+ */
+package ru.spb.devclub.spring.web.context.request.async;
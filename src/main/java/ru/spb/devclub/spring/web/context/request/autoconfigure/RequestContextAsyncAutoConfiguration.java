@@ -0,0 +1,33 @@
+package ru.spb.devclub.spring.web.context.request.autoconfigure;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.spb.devclub.spring.web.context.request.async.RequestContextAsyncConfigurer;
+
+/**
+ * Auto-configuration that registers a {@link RequestContextAsyncConfigurer}, which propagates the request
+ * context to the {@link java.util.concurrent.Callable}s and
+ * {@link org.springframework.web.context.request.async.DeferredResult}s returned by Spring MVC handlers,
+ * unless there is another {@link RequestContextAsyncConfigurer} bean.
+ * Disabled by {@code request-context.async.enabled=false}.
+ *
+ * @since 1.1
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(WebMvcConfigurer.class)
+@ConditionalOnProperty(prefix = "request-context.async", name = "enabled", matchIfMissing = true)
+public class RequestContextAsyncAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(RequestContextAsyncConfigurer.class)
+    public RequestContextAsyncConfigurer requestContextAsyncConfigurer() {
+        return new RequestContextAsyncConfigurer();
+    }
+
+}
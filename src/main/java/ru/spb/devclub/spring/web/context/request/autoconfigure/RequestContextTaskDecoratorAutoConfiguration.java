@@ -0,0 +1,32 @@
+package ru.spb.devclub.spring.web.context.request.autoconfigure;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import ru.spb.devclub.spring.web.context.request.task.RequestContextTaskDecorator;
+
+/**
+ * Auto-configuration that registers a {@link RequestContextTaskDecorator}, which Spring Boot applies
+ * to the application task executor, unless there is another {@link TaskDecorator} bean.
+ * Disabled by {@code request-context.task-decorator.enabled=false}.
+ *
+ * @since 1.1
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "request-context.task-decorator", name = "enabled", matchIfMissing = true)
+@AutoConfigureBefore(TaskExecutionAutoConfiguration.class)
+public class RequestContextTaskDecoratorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    public RequestContextTaskDecorator requestContextTaskDecorator() {
+        return new RequestContextTaskDecorator();
+    }
+
+}
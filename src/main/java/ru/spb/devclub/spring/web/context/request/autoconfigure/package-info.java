@@ -0,0 +1,6 @@
+/**
+ * Spring Boot auto-configuration.
+ *
+ * @since 1.1
+ */
+package ru.spb.devclub.spring.web.context.request.autoconfigure;
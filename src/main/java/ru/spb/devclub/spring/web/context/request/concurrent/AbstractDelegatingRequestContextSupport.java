@@ -1,9 +1,19 @@
 package ru.spb.devclub.spring.web.context.request.concurrent;
 
+import org.springframework.util.Assert;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * An internal support class that wraps {@link Callable} with
@@ -21,6 +31,61 @@ abstract class AbstractDelegatingRequestContextSupport {
      */
     private final boolean inheritable;
 
+    /**
+     * Whether to pass a task through unwrapped when there is no {@link RequestAttributes}.
+     */
+    private boolean contextOptional;
+
+    /**
+     * The {@link RequestAttributesCaptureStrategy} or null to capture the live {@link RequestAttributes}.
+     */
+    private RequestAttributesCaptureStrategy captureStrategy;
+
+    private PropagationMode propagationMode = PropagationMode.THREAD_LOCAL;
+
+    /**
+     * The {@link RequestContextExecutorMetrics} or null if the executor is not instrumented.
+     */
+    private RequestContextExecutorMetrics metrics;
+
+    /**
+     * The number of tasks submitted as is because they already set up a request context.
+     */
+    private final LongAdder collapsedWrapCount = new LongAdder();
+
+    /**
+     * Whether the tasks hold a reference on {@link ReferenceCountedRequestAttributes}.
+     */
+    private boolean deferRequestDestruction;
+
+    /**
+     * Whether the tasks run with {@link ConcurrentRequestAttributes}.
+     */
+    private boolean concurrentRequestAttributes;
+
+    /**
+     * The {@link RequestDeadlineResolver} or null if the tasks have no deadline.
+     */
+    private RequestDeadlineResolver deadlineResolver;
+
+    /**
+     * Whether the {@link Future}s of the tasks are cancelled when their request ends.
+     */
+    private boolean cancelOnRequestCompletion;
+
+    private boolean cancelMayInterruptIfRunning;
+
+    /**
+     * The {@link ContextAccessor}s of the contexts captured along with the {@link RequestAttributes}
+     * or null if only the {@link RequestAttributes} are captured.
+     */
+    private ContextAccessor<Object>[] contextAccessors;
+
+    /**
+     * The ring of recycled wrappers of {@code execute} or null if wrappers are not recycled.
+     */
+    private volatile RecyclingRequestContextRunnableRing wrapperRing;
+
     /**
      * Creates a new {@link AbstractDelegatingRequestContextSupport} that uses the
      * specified {@link RequestAttributes}.
@@ -37,29 +102,618 @@ abstract class AbstractDelegatingRequestContextSupport {
         this.inheritable = inheritable;
     }
 
+    /**
+     * Sets whether a task is passed through unwrapped when neither the specified
+     * nor the current {@link RequestAttributes} is available, so that the same executor
+     * can serve request threads and background threads. Defaults to {@code false},
+     * in which case wrapping a task without {@link RequestAttributes} fails.
+     *
+     * @param contextOptional {@code true} to pass through tasks submitted without
+     *                        {@link RequestAttributes}
+     */
+    public void setContextOptional(boolean contextOptional) {
+        this.contextOptional = contextOptional;
+    }
+
+    /**
+     * Sets the {@link RequestAttributesCaptureStrategy} applied to the specified or the current
+     * {@link RequestAttributes} at the time a task is submitted, for example
+     * {@link SnapshotRequestAttributesCaptureStrategy}. Defaults to null, in which case the live
+     * {@link RequestAttributes} are used.
+     *
+     * @param captureStrategy the {@link RequestAttributesCaptureStrategy} or null
+     */
+    public void setCaptureStrategy(RequestAttributesCaptureStrategy captureStrategy) {
+        this.captureStrategy = captureStrategy;
+    }
+
+    /**
+     * Sets the {@link PropagationMode}. Defaults to {@link PropagationMode#THREAD_LOCAL}.
+     * In the other modes the {@code inheritable} flag is not used.
+     *
+     * @param propagationMode the {@link PropagationMode}. Cannot be null.
+     */
+    public void setPropagationMode(PropagationMode propagationMode) {
+        Assert.notNull(propagationMode, "propagationMode cannot be null");
+        this.propagationMode = propagationMode;
+    }
+
+    /**
+     * Sets the {@link RequestContextExecutorMetrics} to record the tasks of the executor in.
+     * Defaults to null, in which case nothing is recorded.
+     *
+     * @param metrics the {@link RequestContextExecutorMetrics} or null
+     */
+    public void setMetrics(RequestContextExecutorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the number of preallocated wrappers that the tasks passed to {@code execute} are wrapped in and
+     * that return to a ring after they have run, so that high-rate submission does not allocate a wrapper
+     * per task. Defaults to zero, in which case a new wrapper is allocated for each task.
+     * <p>
+     * A new wrapper is still allocated when no recycled one is free, and for the tasks that need more than
+     * the {@link RequestAttributes}: with {@link #setMetrics(RequestContextExecutorMetrics) metrics},
+     * a {@link #setDeadlineResolver(RequestDeadlineResolver) deadline}, deferred destruction or
+     * {@link #setConcurrentRequestAttributes(boolean) concurrent request attributes},
+     * {@link #setContextAccessors(List) context accessors}, or another {@link PropagationMode} than
+     * {@link PropagationMode#THREAD_LOCAL}. The delegate must run each task it accepts once and must not
+     * keep it afterwards: a recycled wrapper that runs again before it is reused fails with an
+     * {@link IllegalStateException}, but once reused it belongs to another task.
+     * <p>
+     * Only delegates that either run or reject every task are supported. A wrapper returns to the ring when
+     * its task runs or is rejected with a {@link java.util.concurrent.RejectedExecutionException}; a wrapper
+     * the delegate accepts but never runs stays taken for good, along with its task and the
+     * {@link RequestAttributes} of its request. That happens with a {@link java.util.concurrent.ThreadPoolExecutor}
+     * that discards tasks through {@link java.util.concurrent.ThreadPoolExecutor.DiscardPolicy} or
+     * {@link java.util.concurrent.ThreadPoolExecutor.DiscardOldestPolicy}, or whose queued tasks are taken out
+     * by {@code remove}, {@code purge} or {@code shutdownNow}. The ring then gradually runs out of free
+     * wrappers and every task gets a new one, as if recycling were disabled.
+     *
+     * @param capacity the number of recycled wrappers, rounded up to a power of two, or zero.
+     *                 Cannot be negative.
+     * @since 1.1
+     */
+    public void setWrapperRecycling(int capacity) {
+        Assert.isTrue(capacity >= 0, "capacity cannot be negative");
+        this.wrapperRing = capacity > 0 ? new RecyclingRequestContextRunnableRing(capacity) : null;
+    }
+
+    /**
+     * Sets whether the tasks hold the request until they complete, so that request scope destruction
+     * callbacks, such as those of request scoped beans created by the tasks or by the request thread before
+     * it submitted them, are deferred until the last task of the request completes, and the request thread
+     * can return without waiting for them. Defaults to {@code false}.
+     * <p>
+     * The destruction callbacks registered by the request thread after it submitted its last task still run
+     * when the request completes.
+     * <p>
+     * Applies to {@link org.springframework.web.context.request.ServletRequestAttributes} only: the tasks
+     * run with the {@link ReferenceCountedRequestAttributes} of the request. A periodic task holds
+     * the request until its first run completes. A task cancelled before it starts releases it, whether
+     * through the {@link Future} returned to the caller, by {@code invokeAll} and {@code invokeAny} or
+     * because its request has ended. A task that the delegate never runs
+     * for another reason, such as one of the tasks returned by {@code shutdownNow}, keeps holding it.
+     *
+     * @param deferRequestDestruction {@code true} to defer the request destruction callbacks
+     * @see ReferenceCountedRequestAttributes
+     * @since 1.1
+     */
+    public void setDeferRequestDestruction(boolean deferRequestDestruction) {
+        this.deferRequestDestruction = deferRequestDestruction;
+    }
+
+    /**
+     * Sets whether the tasks run with the {@link ConcurrentRequestAttributes} of the request, so that
+     * many of them can read and write request attributes and create request scoped beans at the same time.
+     * The request attributes are copied when the first task of the request is submitted, and the changes of
+     * the tasks are written back to the request on the request thread once none of them is running: when it
+     * submits another task or when the request completes. Defaults to {@code false}.
+     * <p>
+     * Applies to {@link org.springframework.web.context.request.ServletRequestAttributes} only, and combines
+     * with {@link #setDeferRequestDestruction(boolean) deferRequestDestruction}, in which case the changes
+     * are written back before the request is released.
+     *
+     * @param concurrentRequestAttributes {@code true} to run the tasks with {@link ConcurrentRequestAttributes}
+     * @see ConcurrentRequestAttributes
+     * @since 1.1
+     */
+    public void setConcurrentRequestAttributes(boolean concurrentRequestAttributes) {
+        this.concurrentRequestAttributes = concurrentRequestAttributes;
+    }
+
+    /**
+     * Sets the {@link RequestDeadlineResolver} that resolves the {@link RequestDeadline} of a request
+     * when its first task is submitted. A task whose request has passed its deadline fails with
+     * {@link RequestDeadlineExceededException} instead of being submitted, or instead of running if the
+     * deadline passes while it is queued, so an overloaded executor does not work for clients that have
+     * given up. A task passed to {@code execute}, which has no {@link Future} to fail, is skipped instead.
+     * The tasks of a request, and the tasks they submit in turn, share its deadline.
+     * Defaults to null, in which case the tasks have no deadline.
+     *
+     * @param deadlineResolver the {@link RequestDeadlineResolver} or null
+     * @see RequestDeadline#current()
+     * @since 1.1
+     */
+    public void setDeadlineResolver(RequestDeadlineResolver deadlineResolver) {
+        this.deadlineResolver = deadlineResolver;
+    }
+
+    /**
+     * Sets whether the tasks submitted under a request that are still outstanding when the request ends
+     * are cancelled, so that abandoned work does not hold the threads of the executor after the response
+     * is gone. A request ends when its thread completes, or, if it has started servlet async processing,
+     * when the async processing completes, times out or fails, for example because the client has
+     * disconnected. Defaults to {@code false}.
+     * <p>
+     * Only the tasks whose {@link Future} is returned by the executor are tracked, not those passed
+     * to {@code execute}, nor those submitted with immutable {@link RequestAttributes} that are not bound to
+     * the request, such as the {@link SnapshotRequestAttributes} a task captured by
+     * {@link SnapshotRequestAttributesCaptureStrategy} runs with.
+     *
+     * @param cancelOnRequestCompletion {@code true} to cancel the outstanding tasks of a request when it ends
+     * @see #setCancelMayInterruptIfRunning(boolean)
+     * @since 1.1
+     */
+    public void setCancelOnRequestCompletion(boolean cancelOnRequestCompletion) {
+        this.cancelOnRequestCompletion = cancelOnRequestCompletion;
+    }
+
+    /**
+     * Sets whether the running tasks are interrupted when they are cancelled because their request
+     * has ended. Defaults to {@code false}.
+     *
+     * @param cancelMayInterruptIfRunning the {@code mayInterruptIfRunning} in {@link Future#cancel(boolean)}
+     * @see #setCancelOnRequestCompletion(boolean)
+     * @since 1.1
+     */
+    public void setCancelMayInterruptIfRunning(boolean cancelMayInterruptIfRunning) {
+        this.cancelMayInterruptIfRunning = cancelMayInterruptIfRunning;
+    }
+
+    /**
+     * Sets the {@link ContextAccessor}s of the thread-bound contexts, such as the
+     * {@link ContextAccessor#localeContext(boolean) LocaleContext} and the {@link ContextAccessor#mdc() MDC},
+     * that are captured along with the {@link RequestAttributes} into a {@link ContextSnapshot} when a task is
+     * submitted, and set up for the task by the same wrapper, instead of stacking a delegating executor per
+     * context. Defaults to none. Applies to {@link PropagationMode#THREAD_LOCAL} only.
+     *
+     * @param contextAccessors the {@link ContextAccessor}s or null. Cannot contain null.
+     * @since 1.1
+     */
+    public void setContextAccessors(List<? extends ContextAccessor<?>> contextAccessors) {
+        this.contextAccessors = contextAccessors != null && !contextAccessors.isEmpty()
+                ? ContextSnapshot.toArray(contextAccessors)
+                : null;
+    }
+
+    /**
+     * Returns the number of tasks that were not wrapped because they already set up a request context,
+     * for example because another delegating executor in the chain has wrapped them.
+     *
+     * @return the number of collapsed wraps
+     * @since 1.1
+     */
+    public long getCollapsedWrapCount() {
+        return this.collapsedWrapCount.sum();
+    }
+
     /**
      * Wraps a {@link Runnable} in {@link DelegatingRequestContextRunnable}
+     * or in {@link ScopedRequestContextRunnable} depending on the {@link PropagationMode},
+     * or in a wrapper of a {@link ContextSnapshot} if {@link #setContextAccessors(List) context accessors} are set
      *
      * @param delegate the original {@link Runnable}
-     * @return wrapped {@link Runnable}
+     * @return wrapped {@link Runnable} or the original one if it already sets up a request context and
+     * there is nothing else to decorate it with, or if there is no {@link RequestAttributes} and
+     * {@link #setContextOptional(boolean) contextOptional} is set. A task that already sets up a request context
+     * is still decorated with the deadline, deferred destruction, concurrent request attributes and metrics,
+     * without setting up the request context again.
      */
     protected final Runnable wrap(Runnable delegate) {
-        return inheritable
-                ? DelegatingRequestContextRunnable.createInheritable(delegate, this.requestAttributes)
-                : DelegatingRequestContextRunnable.create(delegate, this.requestAttributes);
+        return wrap(delegate, false);
+    }
+
+    /**
+     * Wraps a {@link Runnable} that the delegate runs once without a {@link Future} to report its outcome to,
+     * as in {@code execute}, like {@link #wrap(Runnable)}, but in a recycled wrapper if
+     * {@link #setWrapperRecycling(int) wrapper recycling} is enabled. If the {@link RequestDeadline} of its
+     * request passes while it is queued, the task is skipped and recorded as expired rather than failing the
+     * thread of the delegate with {@link RequestDeadlineExceededException}.
+     *
+     * @param delegate the original {@link Runnable}
+     * @return wrapped {@link Runnable}
+     * @since 1.1
+     */
+    protected final Runnable wrapOnce(Runnable delegate) {
+        return wrap(delegate, true);
+    }
+
+    private Runnable wrap(Runnable delegate, boolean once) {
+        boolean bound = bindsContext(delegate);
+        RequestAttributes attributes = currentRequestAttributes();
+        if (bound && (attributes == null || !isDecorating())) {
+            onCollapsed();
+            return delegate;
+        }
+        if (attributes == null) {
+            if (this.metrics != null) {
+                this.metrics.taskWithoutContext();
+            }
+            if (this.contextOptional) {
+                Assert.notNull(delegate, "delegate cannot be null");
+                return delegate;
+            }
+        }
+        RequestDeadline deadline = resolveDeadline(attributes);
+        attributes = capture(attributes);
+        if (isRetaining(attributes)) {
+            RetainedRequestAttributes retained = retain((ServletRequestAttributes) attributes);
+            Runnable wrapped = expiring(instrument(delegate, retained.attributes, bound), deadline, once);
+            if (retained.inner != null) {
+                wrapped = new RequestRetainingRunnable(wrapped, retained.inner);
+            }
+            if (retained.outer != null) {
+                wrapped = new RequestRetainingRunnable(wrapped, retained.outer);
+            }
+            return wrapped;
+        }
+        RecyclingRequestContextRunnableRing ring = this.wrapperRing;
+        if (once && !bound && ring != null && deadline == null && this.metrics == null && attributes != null
+                && this.contextAccessors == null && this.propagationMode == PropagationMode.THREAD_LOCAL) {
+            return ring.acquire(delegate, attributes, this.inheritable);
+        }
+        return expiring(instrument(delegate, attributes, bound), deadline, once);
     }
 
     /**
      * Wraps a {@link Callable} in {@link DelegatingRequestContextCallable}
+     * or in {@link ScopedRequestContextCallable} depending on the {@link PropagationMode},
+     * or in a wrapper of a {@link ContextSnapshot} if {@link #setContextAccessors(List) context accessors} are set
      *
      * @param delegate the original {@link Callable}
      * @param <T>      the result type of {@link Callable}
-     * @return wrapped {@link Callable}
+     * @return wrapped {@link Callable} or the original one if it already sets up a request context and
+     * there is nothing else to decorate it with, or if there is no {@link RequestAttributes} and
+     * {@link #setContextOptional(boolean) contextOptional} is set. A task that already sets up a request context
+     * is still decorated with the deadline, deferred destruction, concurrent request attributes and metrics,
+     * without setting up the request context again.
      */
     protected final <T> Callable<T> wrap(Callable<T> delegate) {
+        boolean bound = bindsContext(delegate);
+        RequestAttributes attributes = currentRequestAttributes();
+        if (bound && (attributes == null || !isDecorating())) {
+            onCollapsed();
+            return delegate;
+        }
+        if (attributes == null) {
+            if (this.metrics != null) {
+                this.metrics.taskWithoutContext();
+            }
+            if (this.contextOptional) {
+                Assert.notNull(delegate, "delegate cannot be null");
+                return delegate;
+            }
+        }
+        RequestDeadline deadline = resolveDeadline(attributes);
+        attributes = capture(attributes);
+        if (isRetaining(attributes)) {
+            RetainedRequestAttributes retained = retain((ServletRequestAttributes) attributes);
+            Callable<T> wrapped = expiring(instrument(delegate, retained.attributes, bound), deadline);
+            if (retained.inner != null) {
+                wrapped = new RequestRetainingCallable<>(wrapped, retained.inner);
+            }
+            if (retained.outer != null) {
+                wrapped = new RequestRetainingCallable<>(wrapped, retained.outer);
+            }
+            return wrapped;
+        }
+        return expiring(instrument(delegate, attributes, bound), deadline);
+    }
+
+    /**
+     * Tracks the {@link Future} of a task submitted under the specified or the current
+     * {@link RequestAttributes}, so that it is cancelled when its request ends, if
+     * {@link #setCancelOnRequestCompletion(boolean) cancelOnRequestCompletion} is set.
+     *
+     * @param future the {@link Future} returned by the delegate
+     * @param task   the task returned by {@link #wrap(Runnable)} or {@link #wrap(Callable)}
+     * @param <T>    the result type of the task
+     * @return the {@link Future} to return to the caller, which releases the request held by the task
+     * when it is cancelled before the task starts, if {@link #setDeferRequestDestruction(boolean)
+     * deferRequestDestruction} is set
+     * @since 1.1
+     */
+    protected final <T> Future<T> track(Future<T> future, Object task) {
+        register(future, task);
+        return task instanceof RequestRetainingTask && future != null
+                ? new RequestRetainingFuture<>(future, task) : future;
+    }
+
+    /**
+     * Tracks the {@link ScheduledFuture} of a task like {@link #track(Future, Object)}.
+     *
+     * @param future the {@link ScheduledFuture} returned by the delegate
+     * @param task   the task returned by {@link #wrap(Runnable)} or {@link #wrap(Callable)}
+     * @param <T>    the result type of the task
+     * @return the {@link ScheduledFuture} to return to the caller
+     * @since 1.1
+     */
+    protected final <T> ScheduledFuture<T> track(ScheduledFuture<T> future, Object task) {
+        register(future, task);
+        return task instanceof RequestRetainingTask && future != null
+                ? new RequestRetainingFuture.Scheduled<>(future, task) : future;
+    }
+
+    /**
+     * Tracks the {@link CompletableFuture} of a task like {@link #track(Future, Object)}.
+     *
+     * @param future the {@link CompletableFuture} that the task completes
+     * @param task   the task returned by {@link #wrap(Runnable)} or {@link #wrap(Callable)}
+     * @param <T>    the result type of the task
+     * @return the same {@link CompletableFuture}
+     * @since 1.1
+     */
+    protected final <T> CompletableFuture<T> track(CompletableFuture<T> future, Object task) {
+        register(future, task);
+        if (task instanceof RequestRetainingTask && future != null) {
+            future.whenComplete((result, e) -> {
+                if (future.isCancelled()) {
+                    RequestRetainingTask.abandon(task);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Runs a {@link Callable} on an {@link Executor} like {@link CompletableFuture#supplyAsync}, completing
+     * the {@link CompletableFuture} with the checked exception of the {@link Callable} wrapped in a
+     * {@link CompletionException}.
+     *
+     * @param task     the {@link Callable} returned by {@link #wrap(Callable)}
+     * @param executor the {@link Executor} to run it on
+     * @param <T>      the result type of {@link Callable}
+     * @return a {@link CompletableFuture} completed with the result or the exception of the task
+     * @since 1.1
+     */
+    protected static <T> CompletableFuture<T> supplyAsync(Callable<T> task, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private void register(Future<?> future, Object task) {
+        if (this.cancelOnRequestCompletion && future != null) {
+            RequestAttributes attributes = currentRequestAttributes();
+            RequestTaskRegistry registry = attributes != null ? RequestTaskRegistry.of(attributes) : null;
+            if (registry != null) {
+                registry.add(future, task, this.cancelMayInterruptIfRunning);
+            }
+        }
+    }
+
+    /**
+     * Records a submission rejected by the delegate, if the executor is instrumented.
+     *
+     * @see #setMetrics(RequestContextExecutorMetrics)
+     */
+    protected final void onRejected() {
+        if (this.metrics != null) {
+            this.metrics.taskRejected();
+        }
+    }
+
+    /**
+     * Records a submission rejected by the delegate, if the executor is instrumented, and releases
+     * the request held by the task, if {@link #setDeferRequestDestruction(boolean) deferRequestDestruction}
+     * is set.
+     *
+     * @param task the task returned by {@link #wrap(Runnable)} or {@link #wrap(Callable)}
+     */
+    protected final void onRejected(Object task) {
+        onRejected();
+        RequestRetainingTask.abandon(task);
+        RecyclingRequestContextRunnableRing.abandon(task);
+    }
+
+    /**
+     * Releases the request held by each of the tasks that has not started, after the delegate has
+     * completed or cancelled all of them, if {@link #setDeferRequestDestruction(boolean) deferRequestDestruction}
+     * is set.
+     *
+     * @param tasks the tasks returned by {@link #wrap(Callable)} or null
+     */
+    protected final void onFinished(Collection<?> tasks) {
+        RequestRetainingTask.abandonAll(tasks);
+    }
+
+    /**
+     * Resolves the {@link RequestDeadline} of the request of a task.
+     *
+     * @throws RequestDeadlineExceededException if the deadline has passed
+     */
+    private RequestDeadline resolveDeadline(RequestAttributes attributes) {
+        if (this.deadlineResolver == null || attributes == null) {
+            return null;
+        }
+        RequestDeadline deadline = RequestDeadline.resolve(attributes, this.deadlineResolver);
+        if (deadline != null && deadline.isExpired()) {
+            if (this.metrics != null) {
+                this.metrics.taskExpired();
+            }
+            throw new RequestDeadlineExceededException(deadline);
+        }
+        return deadline;
+    }
+
+    /**
+     * Returns the {@link RequestDeadline} of the request of the tasks being submitted, once the first of them
+     * has resolved it.
+     *
+     * @return the {@link RequestDeadline} or null if the tasks have no deadline
+     */
+    final RequestDeadline currentDeadline() {
+        RequestAttributes attributes = currentRequestAttributes();
+        return this.deadlineResolver != null && attributes != null ? RequestDeadline.of(attributes) : null;
+    }
+
+    private Runnable expiring(Runnable wrapped, RequestDeadline deadline, boolean once) {
+        return deadline != null ? new DeadlineCheckingRunnable(wrapped, deadline, this.metrics, !once) : wrapped;
+    }
+
+    private <T> Callable<T> expiring(Callable<T> wrapped, RequestDeadline deadline) {
+        return deadline != null ? new DeadlineCheckingCallable<>(wrapped, deadline, this.metrics) : wrapped;
+    }
+
+    private boolean isRetaining(RequestAttributes attributes) {
+        return (this.deferRequestDestruction || this.concurrentRequestAttributes)
+                && attributes instanceof ServletRequestAttributes;
+    }
+
+    /**
+     * Resolves the {@link RetainableRequestAttributes} a task runs with and retains them, the
+     * {@link ConcurrentRequestAttributes} inside, so that they are written back before the
+     * {@link ReferenceCountedRequestAttributes} are released.
+     */
+    private RetainedRequestAttributes retain(ServletRequestAttributes attributes) {
+        ConcurrentRequestAttributes concurrent = null;
+        if (attributes instanceof ConcurrentRequestAttributes) {
+            concurrent = (ConcurrentRequestAttributes) attributes;
+            attributes = concurrent.getRequestAttributes();
+        }
+        ReferenceCountedRequestAttributes counted = null;
+        if (this.deferRequestDestruction) {
+            counted = ReferenceCountedRequestAttributes.of(attributes);
+            attributes = counted;
+        }
+        if (concurrent == null && this.concurrentRequestAttributes) {
+            concurrent = ConcurrentRequestAttributes.of(attributes);
+        }
+        RetainedRequestAttributes retained = new RetainedRequestAttributes(concurrent != null ? concurrent : attributes);
+        if (concurrent != null && concurrent.retain()) {
+            retained.inner = concurrent;
+        }
+        if (counted != null && counted.retain()) {
+            retained.outer = counted;
+        }
+        return retained;
+    }
+
+    /**
+     * Times a task, if the executor is instrumented, and wraps it in the request context unless it
+     * already sets up one itself.
+     *
+     * @param bound whether the task already sets up the request context
+     */
+    private Runnable instrument(Runnable delegate, RequestAttributes attributes, boolean bound) {
+        if (bound) {
+            onCollapsed();
+        }
+        if (this.metrics != null) {
+            return this.metrics.instrument(delegate, task -> bound ? task : wrap(task, attributes));
+        }
+        return bound ? delegate : wrap(delegate, attributes);
+    }
+
+    private <T> Callable<T> instrument(Callable<T> delegate, RequestAttributes attributes, boolean bound) {
+        if (bound) {
+            onCollapsed();
+        }
+        if (this.metrics != null) {
+            return this.metrics.instrument(delegate, task -> bound ? task : wrap(task, attributes));
+        }
+        return bound ? delegate : wrap(delegate, attributes);
+    }
+
+    /**
+     * Whether a task already sets up everything the wrapper of this executor would, so that only the
+     * {@link RequestContextHolder} layer can be left out: a {@link RequestContextWrapper}, which is
+     * a {@link ContextSnapshot} wrapper too if {@link #setContextAccessors(List) context accessors} are set,
+     * and which sets up the {@link RequestContextHolder} unless this executor propagates the request context
+     * with {@link PropagationMode#SCOPED_VALUE} only.
+     */
+    private boolean bindsContext(Object delegate) {
+        return delegate instanceof RequestContextWrapper
+                && (this.contextAccessors == null || ContextSnapshot.isWrapper(delegate))
+                && (this.propagationMode == PropagationMode.SCOPED_VALUE || RequestContextWrapper.bindsHolder(delegate));
+    }
+
+    /**
+     * Whether the tasks are decorated with more than the request context, so that a task that already
+     * sets up the request context is still wrapped.
+     */
+    private boolean isDecorating() {
+        return this.deadlineResolver != null || this.metrics != null || this.deferRequestDestruction
+                || this.concurrentRequestAttributes;
+    }
+
+    private void onCollapsed() {
+        this.collapsedWrapCount.increment();
+        if (this.metrics != null) {
+            this.metrics.taskCollapsed();
+        }
+    }
+
+    private Runnable wrap(Runnable delegate, RequestAttributes attributes) {
+        if (this.propagationMode != PropagationMode.THREAD_LOCAL) {
+            return new ScopedRequestContextRunnable(delegate, attributes,
+                    this.propagationMode == PropagationMode.SCOPED_VALUE_WITH_HOLDER);
+        }
+        if (this.contextAccessors != null && attributes != null) {
+            return ContextSnapshot.capture(attributes, this.inheritable, this.contextAccessors).wrap(delegate);
+        }
+        return inheritable
+                ? DelegatingRequestContextRunnable.createInheritable(delegate, attributes)
+                : DelegatingRequestContextRunnable.create(delegate, attributes);
+    }
+
+    private <T> Callable<T> wrap(Callable<T> delegate, RequestAttributes attributes) {
+        if (this.propagationMode != PropagationMode.THREAD_LOCAL) {
+            return new ScopedRequestContextCallable<>(delegate, attributes,
+                    this.propagationMode == PropagationMode.SCOPED_VALUE_WITH_HOLDER);
+        }
+        if (this.contextAccessors != null && attributes != null) {
+            return ContextSnapshot.capture(attributes, this.inheritable, this.contextAccessors).wrap(delegate);
+        }
         return inheritable
-                ? DelegatingRequestContextCallable.createInheritable(delegate, this.requestAttributes)
-                : DelegatingRequestContextCallable.create(delegate, this.requestAttributes);
+                ? DelegatingRequestContextCallable.createInheritable(delegate, attributes)
+                : DelegatingRequestContextCallable.create(delegate, attributes);
+    }
+
+    final RequestAttributes currentRequestAttributes() {
+        return (this.requestAttributes != null)
+                ? this.requestAttributes
+                : RequestContextHolder.getRequestAttributes();
+    }
+
+    private RequestAttributes capture(RequestAttributes attributes) {
+        if (attributes != null && this.captureStrategy != null) {
+            attributes = this.captureStrategy.capture(attributes);
+            Assert.notNull(attributes, "captureStrategy cannot return null");
+        }
+        return attributes;
+    }
+
+    private static final class RetainedRequestAttributes {
+
+        private final RequestAttributes attributes;
+
+        private RetainableRequestAttributes inner;
+
+        private RetainableRequestAttributes outer;
+
+        private RetainedRequestAttributes(RequestAttributes attributes) {
+            this.attributes = attributes;
+        }
+
     }
 
 }
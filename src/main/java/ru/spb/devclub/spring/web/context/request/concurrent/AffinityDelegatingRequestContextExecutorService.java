@@ -0,0 +1,60 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * A {@link DelegatingRequestContextExecutorService} which runs all the tasks of a request on the same
+ * worker thread, and wraps each {@link Runnable} in a {@link DelegatingRequestContextRunnable} and each
+ * {@link Callable} in a {@link DelegatingRequestContextCallable}.
+ * </p>
+ * <p>
+ * Each of a fixed number of workers runs the tasks of its queue one by one. A task goes to the worker chosen
+ * by the request of the {@link RequestAttributes} it runs with: the specified ones, or those bound to the
+ * thread that submits it. A worker leaves the {@link RequestAttributes} of a task bound after it completes,
+ * so consecutive tasks of the same request skip setting and restoring them and find the data of the request
+ * in the caches of the same core, which suits pipelines of many small tasks per request. The
+ * {@link RequestAttributes} are reset once the worker has no more tasks.
+ * </p>
+ * <p>
+ * As on a single thread executor, the tasks of a request run one after another, so a task must not wait for
+ * another task of the same request, and a request with many tasks delays the other requests of its worker.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class AffinityDelegatingRequestContextExecutorService extends DelegatingRequestContextExecutorService {
+
+    /**
+     * The prefix of the names of the worker threads.
+     */
+    public static final String DEFAULT_THREAD_NAME_PREFIX = "request-context-affinity-";
+
+    /**
+     * Creates a new {@link AffinityDelegatingRequestContextExecutorService} that uses the specified
+     * {@link RequestAttributes}.
+     *
+     * @param workers           the number of worker threads. Must be positive.
+     * @param requestAttributes the {@link RequestAttributes} to use for each
+     *                          {@link DelegatingRequestContextRunnable} and each
+     *                          {@link DelegatingRequestContextCallable} or null to default to the current
+     *                          {@link RequestAttributes}
+     */
+    public AffinityDelegatingRequestContextExecutorService(int workers, RequestAttributes requestAttributes) {
+        super(new RequestAffinityExecutorService(workers, DEFAULT_THREAD_NAME_PREFIX, requestAttributes),
+                requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link AffinityDelegatingRequestContextExecutorService} that uses the current
+     * {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param workers the number of worker threads. Must be positive.
+     */
+    public AffinityDelegatingRequestContextExecutorService(int workers) {
+        this(workers, null);
+    }
+
+}
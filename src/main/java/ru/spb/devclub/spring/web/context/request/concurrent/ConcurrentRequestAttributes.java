@@ -0,0 +1,298 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A {@link ServletRequestAttributes} shared by the tasks of a request, which keeps the request attributes
+ * in a {@link ConcurrentHashMap}, so that many tasks can read and write them, and create request scoped
+ * beans, at the same time without touching the request, whose attributes are not meant to be accessed
+ * concurrently.
+ * </p>
+ * <p>
+ * The request attributes are copied from the underlying {@link ServletRequestAttributes} once, when
+ * {@link #of(ServletRequestAttributes)} is first called with them, that is when the first task is submitted
+ * from the request thread, so request attributes the request thread changes afterwards are not seen by the tasks.
+ * </p>
+ * <p>
+ * The changes of the tasks are written back to the underlying {@link ServletRequestAttributes} on the request
+ * thread only, once no task of the request is running: when the last running task completes on the request
+ * thread, when the request thread calls {@link #of(ServletRequestAttributes)} again, for example to submit
+ * another task, or when the request completes. Changes of tasks still running when the request completes
+ * are lost, unless the underlying {@link ServletRequestAttributes} are {@link ReferenceCountedRequestAttributes},
+ * in which case they are written back to its detached attributes when the last running task completes.
+ * </p>
+ * <p>
+ * Session attributes, destruction callbacks and the session are delegated to the underlying
+ * {@link ServletRequestAttributes}. Two tasks that access a request scoped bean for the first time
+ * at the same time may both create it, as on the request thread, and the last one is kept.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setConcurrentRequestAttributes(boolean)
+ * @since 1.1
+ */
+public final class ConcurrentRequestAttributes extends ServletRequestAttributes
+        implements RetainableRequestAttributes {
+
+    private static final String ATTRIBUTE_NAME = ConcurrentRequestAttributes.class.getName();
+
+    private static final Object REMOVED = new Object();
+
+    private final ServletRequestAttributes requestAttributes;
+
+    private final Map<String, Value> values = new ConcurrentHashMap<>();
+
+    private final AtomicInteger references = new AtomicInteger();
+
+    /**
+     * The thread the request attributes are copied on, which the changes are written back on.
+     */
+    private final Thread requestThread = Thread.currentThread();
+
+    private ConcurrentRequestAttributes(ServletRequestAttributes requestAttributes) {
+        super(requestAttributes.getRequest(), requestAttributes.getResponse());
+        this.requestAttributes = requestAttributes;
+        for (String name : requestAttributes.getAttributeNames(SCOPE_REQUEST)) {
+            Object object = requestAttributes.getAttribute(name, SCOPE_REQUEST);
+            if (object != null && !ATTRIBUTE_NAME.equals(name)) {
+                this.values.put(name, new Value(object, false));
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link ConcurrentRequestAttributes} of the request, creating it on the first call,
+     * which copies the request attributes into it. Called on the request thread while no task of the request
+     * is running, writes the changes of the tasks back to the underlying {@link ServletRequestAttributes}.
+     *
+     * @param requestAttributes the {@link ServletRequestAttributes} of an active request
+     *                          or a {@link ConcurrentRequestAttributes}. Cannot be null.
+     * @return the {@link ConcurrentRequestAttributes} shared by the tasks of the request
+     */
+    public static ConcurrentRequestAttributes of(ServletRequestAttributes requestAttributes) {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        if (requestAttributes instanceof ConcurrentRequestAttributes) {
+            return (ConcurrentRequestAttributes) requestAttributes;
+        }
+        ConcurrentRequestAttributes concurrent;
+        synchronized (requestAttributes) {
+            Object existing = requestAttributes.getAttribute(ATTRIBUTE_NAME, SCOPE_REQUEST);
+            if (!(existing instanceof ConcurrentRequestAttributes)) {
+                ConcurrentRequestAttributes created = new ConcurrentRequestAttributes(requestAttributes);
+                requestAttributes.setAttribute(ATTRIBUTE_NAME, created, SCOPE_REQUEST);
+                if (!(requestAttributes instanceof ReferenceCountedRequestAttributes)) {
+                    requestAttributes.registerDestructionCallback(ATTRIBUTE_NAME, () -> created.flushIfIdle(true),
+                            SCOPE_REQUEST);
+                }
+                return created;
+            }
+            concurrent = (ConcurrentRequestAttributes) existing;
+        }
+        if (concurrent.requestThread == Thread.currentThread()) {
+            concurrent.flushIfIdle(false);
+        }
+        return concurrent;
+    }
+
+    /**
+     * Writes the changes of the tasks back to the request before its {@link ReferenceCountedRequestAttributes}
+     * are detached, if it has {@link ConcurrentRequestAttributes} and none of its tasks is running.
+     *
+     * @param requestAttributes the {@link ServletRequestAttributes} of a completing request
+     */
+    static void flushIfIdle(ServletRequestAttributes requestAttributes) {
+        Object concurrent = requestAttributes.getAttribute(ATTRIBUTE_NAME, SCOPE_REQUEST);
+        if (concurrent instanceof ConcurrentRequestAttributes) {
+            ((ConcurrentRequestAttributes) concurrent).flushIfIdle(true);
+        }
+    }
+
+    /**
+     * Adds a reference of a task.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean retain() {
+        this.references.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Releases a reference of a task and writes the changes back to the underlying
+     * {@link ServletRequestAttributes} if it was the last one and it is safe to do so on this thread:
+     * on the request thread, or once detached {@link ReferenceCountedRequestAttributes} no longer share
+     * the attributes of the request.
+     *
+     * @throws IllegalStateException if there is no reference to release
+     */
+    @Override
+    public void release() {
+        int references = this.references.decrementAndGet();
+        if (references < 0) {
+            this.references.incrementAndGet();
+            throw new IllegalStateException("No reference to release");
+        }
+        if (references == 0 && (this.requestThread == Thread.currentThread() || isDetached())) {
+            flush(false);
+        }
+    }
+
+    int getReferenceCount() {
+        return this.references.get();
+    }
+
+    /**
+     * Returns the {@link RequestAttributes} of the request that the specified ones belong to, looking through
+     * the {@link ConcurrentRequestAttributes} and {@link ReferenceCountedRequestAttributes} that the delegating
+     * executors bind to their tasks.
+     *
+     * @param attributes the {@link RequestAttributes} or null
+     * @return the {@link RequestAttributes} of the request or null
+     */
+    static RequestAttributes unwrap(RequestAttributes attributes) {
+        if (attributes instanceof ConcurrentRequestAttributes) {
+            attributes = ((ConcurrentRequestAttributes) attributes).getRequestAttributes();
+        }
+        if (attributes instanceof ReferenceCountedRequestAttributes) {
+            attributes = ((ReferenceCountedRequestAttributes) attributes).getRequestAttributes();
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns the underlying {@link ServletRequestAttributes}.
+     *
+     * @return the {@link ServletRequestAttributes} the changes are written back to
+     */
+    public ServletRequestAttributes getRequestAttributes() {
+        return this.requestAttributes;
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        if (scope != SCOPE_REQUEST) {
+            return this.requestAttributes.getAttribute(name, scope);
+        }
+        Value value = this.values.get(name);
+        return value == null || value.object == REMOVED ? null : value.object;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        if (scope != SCOPE_REQUEST) {
+            this.requestAttributes.setAttribute(name, value, scope);
+        } else {
+            this.values.put(name, new Value(value, true));
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        if (scope != SCOPE_REQUEST) {
+            this.requestAttributes.removeAttribute(name, scope);
+        } else {
+            this.values.put(name, new Value(REMOVED, true));
+        }
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        if (scope != SCOPE_REQUEST) {
+            return this.requestAttributes.getAttributeNames(scope);
+        }
+        return this.values.entrySet().stream()
+                .filter(entry -> entry.getValue().object != REMOVED)
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        this.requestAttributes.registerDestructionCallback(name, callback, scope);
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return this.requestAttributes.resolveReference(key);
+    }
+
+    @Override
+    public String getSessionId() {
+        return this.requestAttributes.getSessionId();
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return this.requestAttributes.getSessionMutex();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentRequestAttributes{" + this.requestAttributes + ", references=" + this.references + '}';
+    }
+
+    private boolean isDetached() {
+        return this.requestAttributes instanceof ReferenceCountedRequestAttributes
+                && ((ReferenceCountedRequestAttributes) this.requestAttributes).isDetached();
+    }
+
+    private void flushIfIdle(boolean completing) {
+        if (this.references.get() == 0) {
+            flush(completing);
+        }
+    }
+
+    /**
+     * Writes the request attributes that the tasks have changed back to the underlying
+     * {@link ServletRequestAttributes}. An attribute changed again meanwhile stays changed.
+     *
+     * @param completing whether the request is completing, in which case a removed attribute is removed from
+     *                   the request directly, since the destruction callbacks that {@link ServletRequestAttributes}
+     *                   would remove along with it are being run
+     */
+    private synchronized void flush(boolean completing) {
+        try {
+            this.values.forEach((name, value) -> {
+                if (!value.dirty) {
+                    return;
+                }
+                if (value.object == REMOVED && completing) {
+                    getRequest().removeAttribute(name);
+                    this.values.remove(name, value);
+                } else if (value.object == REMOVED) {
+                    this.requestAttributes.removeAttribute(name, SCOPE_REQUEST);
+                    this.values.remove(name, value);
+                } else {
+                    this.requestAttributes.setAttribute(name, value.object, SCOPE_REQUEST);
+                    this.values.replace(name, value, new Value(value.object, false));
+                }
+            });
+        } catch (IllegalStateException ignore) {
+            // the request is not active anymore
+        }
+    }
+
+    private static final class Value {
+
+        private final Object object;
+
+        /**
+         * Whether the value has been changed by a task and not yet written back.
+         */
+        private final boolean dirty;
+
+        private Value(Object object, boolean dirty) {
+            this.object = object;
+            this.dirty = dirty;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * An accessor of a thread-bound context, such as a {@code ThreadLocal} holder, that a {@link ContextSnapshot}
+ * captures along with the {@link org.springframework.web.context.request.RequestAttributes} when a task is
+ * submitted and sets up for the task when it runs.
+ * </p>
+ * <p>
+ * For example, the {@code SecurityContext} of Spring Security:
+ * </p>
+ * <pre>
+ * ContextAccessor.of(SecurityContextHolder::getContext, SecurityContextHolder::setContext,
+ *         SecurityContextHolder::clearContext);
+ * </pre>
+ *
+ * @param <T> the type of the context
+ * @see AbstractDelegatingRequestContextSupport#setContextAccessors(java.util.List)
+ * @since 1.1
+ */
+public interface ContextAccessor<T> {
+
+    /**
+     * Returns the context bound to the current thread.
+     *
+     * @return the context or null if there is none
+     */
+    T getValue();
+
+    /**
+     * Binds the specified context to the current thread, or clears it if null.
+     *
+     * @param value the context or null
+     */
+    void setValue(T value);
+
+    /**
+     * Creates a {@link ContextAccessor} of the specified functions.
+     *
+     * @param getter returns the context bound to the current thread. Cannot be null.
+     * @param setter binds a context to the current thread. Cannot be null.
+     * @param reset  clears the context of the current thread. Cannot be null.
+     * @param <T>    the type of the context
+     * @return created {@link ContextAccessor}
+     */
+    static <T> ContextAccessor<T> of(Supplier<T> getter, Consumer<T> setter, Runnable reset) {
+        Assert.notNull(getter, "getter cannot be null");
+        Assert.notNull(setter, "setter cannot be null");
+        Assert.notNull(reset, "reset cannot be null");
+        return new ContextAccessor<T>() {
+            @Override
+            public T getValue() {
+                return getter.get();
+            }
+
+            @Override
+            public void setValue(T value) {
+                if (value != null) {
+                    setter.accept(value);
+                } else {
+                    reset.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link ContextAccessor} of the {@link org.springframework.context.i18n.LocaleContextHolder}.
+     * Requires {@code spring-context}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link org.springframework.context.i18n.LocaleContextHolder#setLocaleContext(
+     *                    org.springframework.context.i18n.LocaleContext, boolean)}
+     * @return the {@link ContextAccessor} of the {@link org.springframework.context.i18n.LocaleContext}
+     */
+    static ContextAccessor<?> localeContext(boolean inheritable) {
+        return new LocaleContextAccessor(inheritable);
+    }
+
+    /**
+     * Returns a {@link ContextAccessor} of the SLF4J {@code MDC}, which captures a copy of its map.
+     * Requires {@code slf4j-api}.
+     *
+     * @return the {@link ContextAccessor} of the {@code MDC}
+     */
+    static ContextAccessor<Map<String, String>> mdc() {
+        return MdcContextAccessor.INSTANCE;
+    }
+
+}
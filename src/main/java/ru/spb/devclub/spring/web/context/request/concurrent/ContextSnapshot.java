@@ -0,0 +1,213 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * The {@link RequestAttributes} and the contexts of a list of {@link ContextAccessor}s captured at once,
+ * which a single wrapper sets up before a task and restores after it in one pass, instead of a wrapper
+ * per context.
+ * </p>
+ * <p>
+ * The contexts are set up in the order of the {@link ContextAccessor}s after the {@link RequestAttributes},
+ * and restored in the reverse order. A context that was null when captured is cleared for the task.
+ * </p>
+ *
+ * @see AbstractDelegatingRequestContextSupport#setContextAccessors(List)
+ * @since 1.1
+ */
+public final class ContextSnapshot {
+
+    private final RequestAttributes requestAttributes;
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    private final ContextAccessor<Object>[] accessors;
+
+    private final Object[] values;
+
+    private ContextSnapshot(RequestAttributes requestAttributes, boolean inheritable,
+                            ContextAccessor<Object>[] accessors) {
+        this.requestAttributes = requestAttributes;
+        this.inheritable = inheritable;
+        this.accessors = accessors;
+        this.values = new Object[accessors.length];
+        for (int i = 0; i < accessors.length; i++) {
+            this.values[i] = accessors[i].getValue();
+        }
+    }
+
+    /**
+     * Captures the specified {@link RequestAttributes} and the contexts of the current thread.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to set up for a task. Cannot be null.
+     * @param inheritable       the {@code inheritable} in
+     *                          {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     * @param accessors         the {@link ContextAccessor}s of the contexts to capture. Cannot be null.
+     * @return captured {@link ContextSnapshot}
+     */
+    public static ContextSnapshot capture(RequestAttributes requestAttributes, boolean inheritable,
+                                          List<? extends ContextAccessor<?>> accessors) {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        Assert.notNull(accessors, "accessors cannot be null");
+        return new ContextSnapshot(requestAttributes, inheritable, toArray(accessors));
+    }
+
+    /**
+     * Captures the current {@link RequestAttributes} and the contexts of the current thread.
+     *
+     * @param accessors the {@link ContextAccessor}s of the contexts to capture. Cannot be null.
+     * @return captured {@link ContextSnapshot}
+     * @throws IllegalStateException if there are no current {@link RequestAttributes}
+     */
+    public static ContextSnapshot capture(List<? extends ContextAccessor<?>> accessors) {
+        return capture(RequestContextHolder.currentRequestAttributes(), false, accessors);
+    }
+
+    static ContextSnapshot capture(RequestAttributes requestAttributes, boolean inheritable,
+                                   ContextAccessor<Object>[] accessors) {
+        return new ContextSnapshot(requestAttributes, inheritable, accessors);
+    }
+
+    /**
+     * Wraps a {@link Runnable} to run with the captured contexts.
+     *
+     * @param delegate the {@link Runnable}. Cannot be null.
+     * @return the wrapped {@link Runnable}
+     */
+    public Runnable wrap(Runnable delegate) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return new SnapshotRunnable(delegate, this);
+    }
+
+    /**
+     * Wraps a {@link Callable} to run with the captured contexts.
+     *
+     * @param delegate the {@link Callable}. Cannot be null.
+     * @param <T>      the result type of {@link Callable}
+     * @return the wrapped {@link Callable}
+     */
+    public <T> Callable<T> wrap(Callable<T> delegate) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return new SnapshotCallable<>(delegate, this);
+    }
+
+    /**
+     * Returns the captured {@link RequestAttributes}.
+     *
+     * @return the {@link RequestAttributes}
+     */
+    public RequestAttributes getRequestAttributes() {
+        return this.requestAttributes;
+    }
+
+    /**
+     * Sets up the captured contexts on the current thread.
+     *
+     * @return the previous contexts, the {@link RequestAttributes} first, to pass to {@link #restore(Object[])}
+     */
+    private Object[] apply() {
+        Object[] previous = new Object[this.accessors.length + 1];
+        previous[0] = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(this.requestAttributes, this.inheritable);
+        for (int i = 0; i < this.accessors.length; i++) {
+            previous[i + 1] = this.accessors[i].getValue();
+            this.accessors[i].setValue(this.values[i]);
+        }
+        return previous;
+    }
+
+    private void restore(Object[] previous) {
+        for (int i = this.accessors.length - 1; i >= 0; i--) {
+            this.accessors[i].setValue(previous[i + 1]);
+        }
+        if (previous[0] == null) {
+            RequestContextHolder.resetRequestAttributes();
+        } else {
+            RequestContextHolder.setRequestAttributes((RequestAttributes) previous[0], this.inheritable);
+        }
+    }
+
+    /**
+     * Returns whether a task is a wrapper of a {@link ContextSnapshot}.
+     */
+    static boolean isWrapper(Object task) {
+        return task instanceof SnapshotRunnable || task instanceof SnapshotCallable;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ContextAccessor<Object>[] toArray(List<? extends ContextAccessor<?>> accessors) {
+        ContextAccessor<Object>[] array = accessors.toArray(new ContextAccessor[0]);
+        for (ContextAccessor<Object> accessor : array) {
+            Assert.notNull(accessor, "accessors cannot contain null");
+        }
+        return array;
+    }
+
+    private static final class SnapshotRunnable implements Runnable, RequestContextWrapper {
+
+        private final Runnable delegate;
+
+        private final ContextSnapshot snapshot;
+
+        private SnapshotRunnable(Runnable delegate, ContextSnapshot snapshot) {
+            this.delegate = delegate;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void run() {
+            RequestAffinityThread.enterUnbound();
+            Object[] previous = this.snapshot.apply();
+            try {
+                this.delegate.run();
+            } finally {
+                this.snapshot.restore(previous);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.delegate.toString();
+        }
+
+    }
+
+    private static final class SnapshotCallable<T> implements Callable<T>, RequestContextWrapper {
+
+        private final Callable<T> delegate;
+
+        private final ContextSnapshot snapshot;
+
+        private SnapshotCallable(Callable<T> delegate, ContextSnapshot snapshot) {
+            this.delegate = delegate;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public T call() throws Exception {
+            RequestAffinityThread.enterUnbound();
+            Object[] previous = this.snapshot.apply();
+            try {
+                return this.delegate.call();
+            } finally {
+                this.snapshot.restore(previous);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.delegate.toString();
+        }
+
+    }
+
+}
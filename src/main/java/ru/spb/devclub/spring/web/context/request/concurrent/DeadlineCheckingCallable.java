@@ -0,0 +1,47 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.Callable;
+
+/**
+ * An internal {@link Callable} that fails instead of calling its delegate once the
+ * {@link RequestDeadline} of its request has passed.
+ *
+ * @param <V> the result type of {@link Callable}
+ * @since 1.1
+ */
+final class DeadlineCheckingCallable<V> implements Callable<V>, RequestContextWrapper.Decorator {
+
+    private final Callable<V> delegate;
+
+    private final RequestDeadline deadline;
+
+    private final RequestContextExecutorMetrics metrics;
+
+    DeadlineCheckingCallable(Callable<V> delegate, RequestDeadline deadline, RequestContextExecutorMetrics metrics) {
+        this.delegate = delegate;
+        this.deadline = deadline;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public V call() throws Exception {
+        if (this.deadline.isExpired()) {
+            if (this.metrics != null) {
+                this.metrics.taskExpired();
+            }
+            throw new RequestDeadlineExceededException(this.deadline);
+        }
+        return this.delegate.call();
+    }
+
+    @Override
+    public Object getDecorated() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
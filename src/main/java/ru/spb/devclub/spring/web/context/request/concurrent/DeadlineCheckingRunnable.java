@@ -0,0 +1,53 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+/**
+ * An internal {@link Runnable} that fails or is skipped instead of running its delegate once the
+ * {@link RequestDeadline} of its request has passed. A task run by a {@link java.util.concurrent.Future}
+ * fails, so that the {@link java.util.concurrent.Future} reports the deadline; a task passed to
+ * {@code execute} is skipped, since there the exception would only reach the thread of the delegate.
+ *
+ * @since 1.1
+ */
+final class DeadlineCheckingRunnable implements Runnable, RequestContextWrapper.Decorator {
+
+    private final Runnable delegate;
+
+    private final RequestDeadline deadline;
+
+    private final RequestContextExecutorMetrics metrics;
+
+    private final boolean failing;
+
+    DeadlineCheckingRunnable(Runnable delegate, RequestDeadline deadline, RequestContextExecutorMetrics metrics,
+                             boolean failing) {
+        this.delegate = delegate;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.failing = failing;
+    }
+
+    @Override
+    public void run() {
+        if (this.deadline.isExpired()) {
+            if (this.metrics != null) {
+                this.metrics.taskExpired();
+            }
+            if (this.failing) {
+                throw new RequestDeadlineExceededException(this.deadline);
+            }
+            return;
+        }
+        this.delegate.run();
+    }
+
+    @Override
+    public Object getDecorated() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
@@ -0,0 +1,165 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.BiFunction;
+
+/**
+ * <p>
+ * Wraps a delegate {@link BiFunction} with logic for setting up a {@link RequestAttributes}
+ * before invoking the delegate {@link BiFunction} and then removing the
+ * {@link RequestAttributes} after the delegate has completed.
+ * </p>
+ * <p>
+ * If there is a {@link RequestAttributes} that already exists, it will be restored after
+ * the {@link #apply(Object, Object)} method is invoked.
+ * </p>
+ * <p>
+ * Useful for the stages of a {@link java.util.concurrent.CompletableFuture}, for example
+ * {@code future.thenCombineAsync(other, DelegatingRequestContextBiFunction.create(function, null), executor)}.
+ * </p>
+ *
+ * @param <T> the type of the first argument to the {@link BiFunction}
+ * @param <U> the type of the second argument to the {@link BiFunction}
+ * @param <R> the type of the result of the {@link BiFunction}
+ * @since 1.1
+ */
+public final class DelegatingRequestContextBiFunction<T, U, R> implements BiFunction<T, U, R> {
+
+    private final BiFunction<T, U, R> delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link BiFunction} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextBiFunction} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link BiFunction} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link BiFunction}. Cannot be null.
+     * @param inheritable       the {@code inheritable} in
+     *                          {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextBiFunction(BiFunction<T, U, R> delegate, RequestAttributes requestAttributes, boolean inheritable) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextBiFunction} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link BiFunction} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link BiFunction}. Cannot be null.
+     */
+    public DelegatingRequestContextBiFunction(BiFunction<T, U, R> delegate, RequestAttributes requestAttributes) {
+        this(delegate, requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextBiFunction} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate    the delegate {@link BiFunction} to run under the current
+     *                    {@link RequestAttributes}. Cannot be null.
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextBiFunction(BiFunction<T, U, R> delegate, boolean inheritable) {
+        this(delegate, RequestContextHolder.getRequestAttributes(), inheritable);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextBiFunction} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate the delegate {@link BiFunction} to run under the current
+     *                 {@link RequestAttributes}. Cannot be null.
+     */
+    public DelegatingRequestContextBiFunction(BiFunction<T, U, R> delegate) {
+        this(delegate, false);
+    }
+
+    @Override
+    public R apply(T t, U u) {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
+            return this.delegate.apply(t, u);
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextBiFunction} with the given
+     * {@link BiFunction} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link BiFunction} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link BiFunction}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the first argument to the {@link BiFunction}
+     * @param <U>               the type of the second argument to the {@link BiFunction}
+     * @param <R>               the type of the result of the {@link BiFunction}
+     * @return created {@link DelegatingRequestContextBiFunction}
+     */
+    public static <T, U, R> BiFunction<T, U, R> create(BiFunction<T, U, R> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextBiFunction<>(delegate, requestAttributes)
+                : new DelegatingRequestContextBiFunction<>(delegate);
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextBiFunction} with {@code inheritable=true} and with the given
+     * {@link BiFunction} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link BiFunction} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link BiFunction}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the first argument to the {@link BiFunction}
+     * @param <U>               the type of the second argument to the {@link BiFunction}
+     * @param <R>               the type of the result of the {@link BiFunction}
+     * @return created {@link DelegatingRequestContextBiFunction}
+     */
+    public static <T, U, R> BiFunction<T, U, R> createInheritable(BiFunction<T, U, R> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextBiFunction<>(delegate, requestAttributes, true)
+                : new DelegatingRequestContextBiFunction<>(delegate, true);
+    }
+
+}
@@ -15,6 +15,12 @@ import java.util.concurrent.Callable;
  * <p>
  * If there is a {@link RequestAttributes} that already exists, it will be restored after
  * the {@link #call()} method is invoked.
+ * A worker of an {@link AffinityDelegatingRequestContextExecutorService} leaves the {@link RequestAttributes}
+ * of the task bound instead, for the next task of the same request.
+ * </p>
+ * <p>
+ * The wrapper keeps no state while running, so the same instance can run on several threads
+ * at once and can be submitted again and again.
  * </p>
  *
  * @see <a href="https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/concurrent/DelegatingSecurityContextCallable.html">
@@ -22,7 +28,7 @@ import java.util.concurrent.Callable;
  * </a>
  * @since 1.0
  */
-public final class DelegatingRequestContextCallable<V> implements Callable<V> {
+public final class DelegatingRequestContextCallable<V> implements Callable<V>, RequestContextWrapper {
 
     private final Callable<V> delegate;
 
@@ -36,12 +42,6 @@ public final class DelegatingRequestContextCallable<V> implements Callable<V> {
      */
     private final boolean inheritable;
 
-    /**
-     * The {@link RequestAttributes} that was on the {@link RequestContextHolder} prior to
-     * being set to the delegateSecurityContext.
-     */
-    private RequestAttributes originalRequestAttributes;
-
     /**
      * Creates a new {@link DelegatingRequestContextCallable} with a specific
      * {@link RequestAttributes}.
@@ -100,20 +100,40 @@ public final class DelegatingRequestContextCallable<V> implements Callable<V> {
 
     @Override
     public V call() throws Exception {
-        this.originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        if (RequestAffinityThread.enter(this.delegateRequestAttributes, this.inheritable)) {
+            return this.delegate.call();
+        }
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
         try {
             RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
             return this.delegate.call();
         } finally {
-            if (this.originalRequestAttributes == null) {
+            if (originalRequestAttributes == null) {
                 RequestContextHolder.resetRequestAttributes();
             } else {
-                RequestContextHolder.setRequestAttributes(this.originalRequestAttributes, inheritable);
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
             }
-            this.originalRequestAttributes = null;
         }
     }
 
+    /**
+     * Returns the task that is run with the {@link RequestAttributes}.
+     *
+     * @return the delegate
+     */
+    Callable<V> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the {@link RequestAttributes} that the delegate will be ran as.
+     *
+     * @return the {@link RequestAttributes}
+     */
+    RequestAttributes getRequestAttributes() {
+        return this.delegateRequestAttributes;
+    }
+
     @Override
     public String toString() {
         return this.delegate.toString();
@@ -0,0 +1,159 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Wraps a delegate {@link Consumer} with logic for setting up a {@link RequestAttributes}
+ * before invoking the delegate {@link Consumer} and then removing the
+ * {@link RequestAttributes} after the delegate has completed.
+ * </p>
+ * <p>
+ * If there is a {@link RequestAttributes} that already exists, it will be restored after
+ * the {@link #accept(Object)} method is invoked.
+ * </p>
+ * <p>
+ * Useful for the stages of a {@link java.util.concurrent.CompletableFuture}, for example
+ * {@code future.thenAcceptAsync(DelegatingRequestContextConsumer.create(consumer, null), executor)}.
+ * </p>
+ *
+ * @param <T> the type of the input to the {@link Consumer}
+ * @since 1.1
+ */
+public final class DelegatingRequestContextConsumer<T> implements Consumer<T> {
+
+    private final Consumer<T> delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link Consumer} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextConsumer} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Consumer} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Consumer}. Cannot be null.
+     * @param inheritable       the {@code inheritable} in
+     *                          {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextConsumer(Consumer<T> delegate, RequestAttributes requestAttributes, boolean inheritable) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextConsumer} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Consumer} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Consumer}. Cannot be null.
+     */
+    public DelegatingRequestContextConsumer(Consumer<T> delegate, RequestAttributes requestAttributes) {
+        this(delegate, requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextConsumer} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate    the delegate {@link Consumer} to run under the current
+     *                    {@link RequestAttributes}. Cannot be null.
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextConsumer(Consumer<T> delegate, boolean inheritable) {
+        this(delegate, RequestContextHolder.getRequestAttributes(), inheritable);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextConsumer} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate the delegate {@link Consumer} to run under the current
+     *                 {@link RequestAttributes}. Cannot be null.
+     */
+    public DelegatingRequestContextConsumer(Consumer<T> delegate) {
+        this(delegate, false);
+    }
+
+    @Override
+    public void accept(T t) {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
+            this.delegate.accept(t);
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextConsumer} with the given
+     * {@link Consumer} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Consumer} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Consumer}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the input to the {@link Consumer}
+     * @return created {@link DelegatingRequestContextConsumer}
+     */
+    public static <T> Consumer<T> create(Consumer<T> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextConsumer<>(delegate, requestAttributes)
+                : new DelegatingRequestContextConsumer<>(delegate);
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextConsumer} with {@code inheritable=true} and with the given
+     * {@link Consumer} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Consumer} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Consumer}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the input to the {@link Consumer}
+     * @return created {@link DelegatingRequestContextConsumer}
+     */
+    public static <T> Consumer<T> createInheritable(Consumer<T> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextConsumer<>(delegate, requestAttributes, true)
+                : new DelegatingRequestContextConsumer<>(delegate, true);
+    }
+
+}
@@ -4,6 +4,7 @@ import org.springframework.util.Assert;
 import org.springframework.web.context.request.RequestAttributes;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An {@link Executor} which wraps each {@link Runnable} in a {@link DelegatingRequestContextRunnable}.
@@ -18,6 +19,16 @@ public class DelegatingRequestContextExecutor extends AbstractDelegatingRequestC
 
     private final Executor delegate;
 
+    /**
+     * The maximum number of tasks of a request that run at the same time or zero if unlimited.
+     */
+    private volatile int maxConcurrencyPerRequest;
+
+    /**
+     * The name of the request attribute that holds the {@link RequestBulkhead} of the request.
+     */
+    private final String bulkheadAttributeName = RequestBulkhead.newAttributeName();
+
     /**
      * {@inheritDoc}
      */
@@ -54,12 +65,73 @@ public class DelegatingRequestContextExecutor extends AbstractDelegatingRequestC
         this(delegate, null);
     }
 
+    /**
+     * Sets the maximum number of tasks of one request that run on the delegate at the same time, so that
+     * a request that fans out many tasks does not starve the other requests sharing the executor.
+     * The excess tasks of a request wait in a queue of its own, not in the queue of the delegate, and start
+     * as its running tasks complete. A task submitted by a running task of the same request is not limited,
+     * since the running task may wait for it. Defaults to zero, in which case the tasks are not limited.
+     * <p>
+     * The requests are told apart by the specified or the current {@link RequestAttributes}, before
+     * the {@link #setCaptureStrategy(RequestAttributesCaptureStrategy) capture strategy} is applied. Applies
+     * to {@code execute}, {@code submit}, {@code submitCompletable} and {@code invokeAll}; scheduled tasks
+     * and {@code invokeAny} are not limited, nor are the tasks submitted with immutable {@link RequestAttributes}
+     * that are not bound to the request, such as {@link SnapshotRequestAttributes}.
+     *
+     * @param maxConcurrencyPerRequest the maximum number of running tasks per request or zero. Cannot be negative.
+     * @since 1.1
+     */
+    public void setMaxConcurrencyPerRequest(int maxConcurrencyPerRequest) {
+        Assert.isTrue(maxConcurrencyPerRequest >= 0, "maxConcurrencyPerRequest cannot be negative");
+        this.maxConcurrencyPerRequest = maxConcurrencyPerRequest;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public final void execute(Runnable task) {
-        this.delegate.execute(wrap(task));
+        Runnable wrapped = wrapOnce(task);
+        try {
+            RequestBulkhead bulkhead = bulkhead();
+            if (bulkhead != null) {
+                limit(wrapped, bulkhead);
+            } else {
+                this.delegate.execute(wrapped);
+            }
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the {@link RequestBulkhead} of the request of a task about to be submitted.
+     *
+     * @return the {@link RequestBulkhead} or null if the tasks are not limited or have no request or it has ended
+     */
+    final RequestBulkhead bulkhead() {
+        int maxConcurrency = this.maxConcurrencyPerRequest;
+        if (maxConcurrency <= 0) {
+            return null;
+        }
+        RequestAttributes attributes = currentRequestAttributes();
+        return attributes != null
+                ? RequestBulkhead.of(attributes, this.bulkheadAttributeName, maxConcurrency)
+                : null;
+    }
+
+    /**
+     * Executes a task on the delegate through the {@link RequestBulkhead} of its request.
+     *
+     * @param task     the task to execute
+     * @param bulkhead the {@link RequestBulkhead}
+     * @param <R>      the type of the task
+     * @return the same task
+     */
+    final <R extends Runnable> R limit(R task, RequestBulkhead bulkhead) {
+        bulkhead.execute(task, this.delegate);
+        return task;
     }
 
     /**
@@ -1,16 +1,23 @@
 package ru.spb.devclub.spring.web.context.request.concurrent;
 
+import org.springframework.util.Assert;
 import org.springframework.web.context.request.RequestAttributes;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An {@link ExecutorService} which wraps each {@link Runnable} in a
@@ -88,43 +95,266 @@ public class DelegatingRequestContextExecutorService extends DelegatingRequestCo
 
     @Override
     public final <T> Future<T> submit(Callable<T> task) {
-        return getDelegate().submit(wrap(task));
+        Callable<T> wrapped = wrap(task);
+        try {
+            RequestBulkhead bulkhead = bulkhead();
+            Future<T> future = bulkhead != null
+                    ? limit(new FutureTask<>(wrapped), bulkhead)
+                    : getDelegate().submit(wrapped);
+            return track(future, wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public final <T> Future<T> submit(Runnable task, T result) {
-        return getDelegate().submit(wrap(task), result);
+        Runnable wrapped = wrap(task);
+        try {
+            RequestBulkhead bulkhead = bulkhead();
+            Future<T> future = bulkhead != null
+                    ? limit(new FutureTask<>(wrapped, result), bulkhead)
+                    : getDelegate().submit(wrapped, result);
+            return track(future, wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public final Future<?> submit(Runnable task) {
-        return getDelegate().submit(wrap(task));
+        Runnable wrapped = wrap(task);
+        try {
+            RequestBulkhead bulkhead = bulkhead();
+            Future<?> future = bulkhead != null
+                    ? limit(new FutureTask<Void>(wrapped, null), bulkhead)
+                    : getDelegate().submit(wrapped);
+            return track(future, wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a {@link Callable} wrapped in a {@link DelegatingRequestContextCallable} and returns
+     * a {@link CompletableFuture} to build a non-blocking pipeline on, instead of blocking on
+     * {@link Future#get()}. Cancelling the {@link CompletableFuture} does not interrupt the task.
+     *
+     * @param task the {@link Callable} to submit. Cannot be null.
+     * @param <T>  the result type of {@link Callable}
+     * @return a {@link CompletableFuture} completed with the result or the exception of the task
+     * @see DelegatingRequestContextSupplier
+     * @see DelegatingRequestContextFunction
+     * @since 1.1
+     */
+    public final <T> CompletableFuture<T> submitCompletable(Callable<T> task) {
+        Callable<T> wrapped = wrap(task);
+        try {
+            return track(supplyAsync(wrapped, limitedExecutor()), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a {@link Runnable} wrapped in a {@link DelegatingRequestContextRunnable} and returns
+     * a {@link CompletableFuture} to build a non-blocking pipeline on, instead of blocking on
+     * {@link Future#get()}. Cancelling the {@link CompletableFuture} does not interrupt the task.
+     *
+     * @param task the {@link Runnable} to submit. Cannot be null.
+     * @return a {@link CompletableFuture} completed when the task completes
+     * @since 1.1
+     */
+    public final CompletableFuture<Void> submitCompletable(Runnable task) {
+        Runnable wrapped = wrap(task);
+        try {
+            return track(CompletableFuture.runAsync(wrapped, limitedExecutor()), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        RequestBulkhead bulkhead = bulkhead();
         tasks = createTasks(tasks);
-        return getDelegate().invokeAll(tasks);
+        try {
+            return bulkhead != null ? invokeAll(tasks, bulkhead, -1L) : getDelegate().invokeAll(tasks);
+        } catch (RejectedExecutionException e) {
+            onRejected();
+            throw e;
+        } finally {
+            onFinished(tasks);
+        }
     }
 
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
             throws InterruptedException {
+        RequestBulkhead bulkhead = bulkhead();
         tasks = createTasks(tasks);
-        return getDelegate().invokeAll(tasks, timeout, unit);
+        try {
+            return bulkhead != null
+                    ? invokeAll(tasks, bulkhead, Math.max(unit.toNanos(timeout), 0L))
+                    : getDelegate().invokeAll(tasks, timeout, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected();
+            throw e;
+        } finally {
+            onFinished(tasks);
+        }
     }
 
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
         tasks = createTasks(tasks);
-        return getDelegate().invokeAny(tasks);
+        try {
+            return getDelegate().invokeAny(tasks);
+        } catch (RejectedExecutionException e) {
+            onRejected();
+            throw e;
+        } finally {
+            onFinished(tasks);
+        }
     }
 
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
             throws InterruptedException, ExecutionException, TimeoutException {
         tasks = createTasks(tasks);
-        return getDelegate().invokeAny(tasks, timeout, unit);
+        try {
+            return getDelegate().invokeAny(tasks, timeout, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected();
+            throw e;
+        } finally {
+            onFinished(tasks);
+        }
+    }
+
+    /**
+     * <p>
+     * Executes the given tasks like {@link #invokeAll(Collection)}, but instead of wrapping each
+     * task it submits at most {@code parallelism} wrapped workers which share one captured
+     * {@link RequestAttributes} and take the tasks one by one until there are none left.
+     * So the {@link RequestAttributes} are set up once per worker rather than once per task,
+     * and the tasks themselves are not wrapped.
+     * </p>
+     * <p>
+     * The tasks start in iteration order. If the current thread is interrupted while waiting, or the
+     * {@link RequestDeadline} of the request passes, all tasks that have not completed are cancelled.
+     * </p>
+     *
+     * @param tasks       the collection of tasks. Cannot be null.
+     * @param parallelism the maximum number of workers to submit to the delegate. Must be positive.
+     * @param <T>         the result type of the tasks
+     * @return a list of {@link Future}s in the same order as the tasks, each of which has completed
+     * @throws InterruptedException if interrupted while waiting
+     * @since 1.1
+     */
+    public <T> List<Future<T>> invokeAllBatched(Collection<? extends Callable<T>> tasks, int parallelism)
+            throws InterruptedException {
+        Assert.notNull(tasks, "tasks cannot be null");
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            Assert.notNull(task, "task cannot be null");
+            futures.add(new FutureTask<>(task));
+        }
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < futures.size()) {
+                futures.get(index).run();
+            }
+        };
+        boolean done = false;
+        try {
+            RequestBulkhead bulkhead = bulkhead();
+            for (int i = Math.min(parallelism, futures.size()); i > 0; i--) {
+                Runnable wrapped = wrapOnce(worker);
+                try {
+                    if (bulkhead != null) {
+                        limit(wrapped, bulkhead);
+                    } else {
+                        getDelegate().execute(wrapped);
+                    }
+                } catch (RejectedExecutionException e) {
+                    onRejected(wrapped);
+                    throw e;
+                }
+            }
+            RequestDeadline deadline = currentDeadline();
+            for (FutureTask<T> future : futures) {
+                if (!future.isDone()) {
+                    try {
+                        if (deadline == null) {
+                            future.get();
+                        } else {
+                            future.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                        }
+                    } catch (CancellationException | ExecutionException ignore) {
+                    } catch (TimeoutException e) {
+                        return new ArrayList<>(futures);
+                    }
+                }
+            }
+            done = true;
+            return new ArrayList<>(futures);
+        } finally {
+            if (!done) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Executes the tasks through the {@link RequestBulkhead} of their request and waits for them like
+     * {@link #invokeAll(Collection, long, TimeUnit)}.
+     *
+     * @param timeoutNanos the maximum time to wait or a negative value to wait without a timeout
+     */
+    private <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, RequestBulkhead bulkhead,
+                                          long timeoutNanos)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        boolean done = false;
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(limit(new FutureTask<>(task), bulkhead));
+            }
+            for (Future<T> future : futures) {
+                if (!future.isDone()) {
+                    try {
+                        if (timeoutNanos < 0L) {
+                            future.get();
+                        } else {
+                            future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        }
+                    } catch (CancellationException | ExecutionException ignore) {
+                    } catch (TimeoutException e) {
+                        return futures;
+                    }
+                }
+            }
+            done = true;
+            return futures;
+        } finally {
+            if (!done) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private Executor limitedExecutor() {
+        RequestBulkhead bulkhead = bulkhead();
+        return bulkhead != null ? task -> limit(task, bulkhead) : getDelegate();
     }
 
     private <T> Collection<Callable<T>> createTasks(Collection<? extends Callable<T>> tasks) {
@@ -132,8 +362,13 @@ public class DelegatingRequestContextExecutorService extends DelegatingRequestCo
             return null;
         }
         List<Callable<T>> results = new ArrayList<>(tasks.size());
-        for (Callable<T> task : tasks) {
-            results.add(wrap(task));
+        try {
+            for (Callable<T> task : tasks) {
+                results.add(wrap(task));
+            }
+        } catch (RuntimeException e) {
+            onFinished(results);
+            throw e;
         }
         return results;
     }
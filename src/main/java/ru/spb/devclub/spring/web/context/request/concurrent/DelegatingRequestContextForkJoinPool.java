@@ -0,0 +1,192 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * An {@link java.util.concurrent.ExecutorService} over a {@link ForkJoinPool} which wraps each
+ * {@link Runnable} in a {@link DelegatingRequestContextRunnable}, each {@link Callable} in a
+ * {@link DelegatingRequestContextCallable} and each {@link ForkJoinTask} in a task that runs it
+ * with the {@link RequestAttributes} set up.
+ * </p>
+ * <p>
+ * The root task, and every subtask run by the same worker, sees the {@link RequestAttributes}.
+ * Subtasks that other workers steal see them only if they extend
+ * {@link DelegatingRequestContextRecursiveTask} or {@link DelegatingRequestContextRecursiveAction};
+ * these are submitted as is. The same holds for parallel streams ran inside a submitted task:
+ * the parts the submitting worker runs itself see the {@link RequestAttributes}, stolen ones do not.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class DelegatingRequestContextForkJoinPool extends DelegatingRequestContextExecutorService {
+
+    /**
+     * {@inheritDoc}
+     */
+    protected DelegatingRequestContextForkJoinPool(
+            ForkJoinPool delegateForkJoinPool,
+            RequestAttributes requestAttributes,
+            boolean inheritable) {
+        super(delegateForkJoinPool, requestAttributes, inheritable);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextForkJoinPool} that uses the
+     * specified {@link RequestAttributes}.
+     *
+     * @param delegateForkJoinPool the {@link ForkJoinPool} to delegate to. Cannot be null.
+     * @param requestAttributes    the {@link RequestAttributes} to use for each task
+     *                             or null to default to the current {@link RequestAttributes}
+     */
+    public DelegatingRequestContextForkJoinPool(ForkJoinPool delegateForkJoinPool, RequestAttributes requestAttributes) {
+        this(delegateForkJoinPool, requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextForkJoinPool} that uses the
+     * current {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param delegate the {@link ForkJoinPool} to delegate to. Cannot be null.
+     */
+    public DelegatingRequestContextForkJoinPool(ForkJoinPool delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Performs the given task with the {@link RequestAttributes}, returning its result upon completion.
+     *
+     * @param task the task
+     * @param <T>  the type of the task's result
+     * @return the task's result
+     * @see ForkJoinPool#invoke(ForkJoinTask)
+     */
+    public final <T> T invoke(ForkJoinTask<T> task) {
+        ForkJoinTask<T> wrapped = wrap(task);
+        try {
+            return getDelegate().invoke(wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(unwrap(wrapped));
+            throw e;
+        }
+    }
+
+    /**
+     * Arranges for (asynchronous) execution of the given task with the {@link RequestAttributes}.
+     *
+     * @param task the task
+     * @see ForkJoinPool#execute(ForkJoinTask)
+     */
+    public final void execute(ForkJoinTask<?> task) {
+        ForkJoinTask<?> wrapped = wrap(task);
+        try {
+            getDelegate().execute(wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(unwrap(wrapped));
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a {@link ForkJoinTask} for execution with the {@link RequestAttributes}.
+     *
+     * @param task the task to submit
+     * @param <T>  the type of the task's result
+     * @return the task or the task that wraps it
+     * @see ForkJoinPool#submit(ForkJoinTask)
+     */
+    public final <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        ForkJoinTask<T> wrapped = wrap(task);
+        try {
+            ForkJoinTask<T> submitted = getDelegate().submit(wrapped);
+            track(submitted, unwrap(wrapped));
+            return submitted;
+        } catch (RejectedExecutionException e) {
+            onRejected(unwrap(wrapped));
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the targeted parallelism level of the {@link ForkJoinPool}.
+     *
+     * @return the targeted parallelism level
+     * @see ForkJoinPool#getParallelism()
+     */
+    public final int getParallelism() {
+        return getDelegate().getParallelism();
+    }
+
+    private <T> ForkJoinTask<T> wrap(ForkJoinTask<T> task) {
+        if (task instanceof DelegatingRequestContextRecursiveTask
+                || task instanceof DelegatingRequestContextRecursiveAction) {
+            return task;
+        }
+        Callable<T> invoke = task::invoke;
+        return new WrappedForkJoinTask<>(wrap(invoke));
+    }
+
+    /**
+     * Returns the task returned by {@link #wrap(Callable)} that a {@link ForkJoinTask} calls, if any.
+     */
+    private static Object unwrap(ForkJoinTask<?> task) {
+        return task instanceof WrappedForkJoinTask ? ((WrappedForkJoinTask<?>) task).callable : null;
+    }
+
+    private ForkJoinPool getDelegate() {
+        return (ForkJoinPool) getDelegateExecutor();
+    }
+
+    /**
+     * A {@link ForkJoinTask} that calls a wrapped {@link Callable} and releases the request it holds if it is
+     * cancelled or rejected before it starts.
+     */
+    private static final class WrappedForkJoinTask<T> extends ForkJoinTask<T> {
+
+        private final Callable<T> callable;
+
+        private T result;
+
+        private WrappedForkJoinTask(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public T getRawResult() {
+            return this.result;
+        }
+
+        @Override
+        protected void setRawResult(T value) {
+            this.result = value;
+        }
+
+        @Override
+        protected boolean exec() {
+            try {
+                this.result = this.callable.call();
+                return true;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (super.cancel(mayInterruptIfRunning)) {
+                RequestRetainingTask.abandon(this.callable);
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Wraps a delegate {@link Function} with logic for setting up a {@link RequestAttributes}
+ * before invoking the delegate {@link Function} and then removing the
+ * {@link RequestAttributes} after the delegate has completed.
+ * </p>
+ * <p>
+ * If there is a {@link RequestAttributes} that already exists, it will be restored after
+ * the {@link #apply(Object)} method is invoked.
+ * </p>
+ * <p>
+ * Useful for the stages of a {@link java.util.concurrent.CompletableFuture}, for example
+ * {@code future.thenApplyAsync(DelegatingRequestContextFunction.create(function, null), executor)}.
+ * </p>
+ *
+ * @param <T> the type of the input to the {@link Function}
+ * @param <R> the type of the result of the {@link Function}
+ * @since 1.1
+ */
+public final class DelegatingRequestContextFunction<T, R> implements Function<T, R> {
+
+    private final Function<T, R> delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link Function} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextFunction} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Function} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Function}. Cannot be null.
+     * @param inheritable       the {@code inheritable} in
+     *                          {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextFunction(Function<T, R> delegate, RequestAttributes requestAttributes, boolean inheritable) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextFunction} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Function} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Function}. Cannot be null.
+     */
+    public DelegatingRequestContextFunction(Function<T, R> delegate, RequestAttributes requestAttributes) {
+        this(delegate, requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextFunction} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate    the delegate {@link Function} to run under the current
+     *                    {@link RequestAttributes}. Cannot be null.
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextFunction(Function<T, R> delegate, boolean inheritable) {
+        this(delegate, RequestContextHolder.getRequestAttributes(), inheritable);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextFunction} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate the delegate {@link Function} to run under the current
+     *                 {@link RequestAttributes}. Cannot be null.
+     */
+    public DelegatingRequestContextFunction(Function<T, R> delegate) {
+        this(delegate, false);
+    }
+
+    @Override
+    public R apply(T t) {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
+            return this.delegate.apply(t);
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextFunction} with the given
+     * {@link Function} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Function} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Function}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the input to the {@link Function}
+     * @param <R>               the type of the result of the {@link Function}
+     * @return created {@link DelegatingRequestContextFunction}
+     */
+    public static <T, R> Function<T, R> create(Function<T, R> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextFunction<>(delegate, requestAttributes)
+                : new DelegatingRequestContextFunction<>(delegate);
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextFunction} with {@code inheritable=true} and with the given
+     * {@link Function} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Function} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Function}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of the input to the {@link Function}
+     * @param <R>               the type of the result of the {@link Function}
+     * @return created {@link DelegatingRequestContextFunction}
+     */
+    public static <T, R> Function<T, R> createInheritable(Function<T, R> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextFunction<>(delegate, requestAttributes, true)
+                : new DelegatingRequestContextFunction<>(delegate, true);
+    }
+
+}
@@ -0,0 +1,76 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * A {@link RecursiveAction} that captures the {@link RequestAttributes} when it is created and
+ * sets them up while {@link #computeWithRequestContext()} runs, so subtasks created in
+ * {@link #computeWithRequestContext()} and {@link #fork() forked} carry the request context
+ * to whichever worker steals them.
+ * </p>
+ * <p>
+ * The {@link RequestAttributes} are set only if the worker does not hold them yet, so the request
+ * context is set once per stolen batch of subtasks rather than once per leaf.
+ * </p>
+ *
+ * @see DelegatingRequestContextRecursiveTask
+ * @see DelegatingRequestContextForkJoinPool
+ * @since 1.1
+ */
+public abstract class DelegatingRequestContextRecursiveAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The {@link RequestAttributes} that the task will be ran as.
+     */
+    private final transient RequestAttributes delegateRequestAttributes;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextRecursiveAction} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to establish for the task or null
+     *                          to run the task without setting up any
+     */
+    protected DelegatingRequestContextRecursiveAction(RequestAttributes requestAttributes) {
+        this.delegateRequestAttributes = requestAttributes;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextRecursiveAction} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     */
+    protected DelegatingRequestContextRecursiveAction() {
+        this(RequestContextHolder.getRequestAttributes());
+    }
+
+    /**
+     * The main computation performed by this task with the {@link RequestAttributes} set up.
+     */
+    protected abstract void computeWithRequestContext();
+
+    @Override
+    protected final void compute() {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        if (this.delegateRequestAttributes == null || this.delegateRequestAttributes == originalRequestAttributes) {
+            computeWithRequestContext();
+            return;
+        }
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes);
+            computeWithRequestContext();
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes);
+            }
+        }
+    }
+
+}
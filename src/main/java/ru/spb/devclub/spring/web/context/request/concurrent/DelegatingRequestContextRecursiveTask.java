@@ -0,0 +1,79 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * A {@link RecursiveTask} that captures the {@link RequestAttributes} when it is created and
+ * sets them up while {@link #computeWithRequestContext()} runs, so subtasks created in
+ * {@link #computeWithRequestContext()} and {@link #fork() forked} carry the request context
+ * to whichever worker steals them.
+ * </p>
+ * <p>
+ * The {@link RequestAttributes} are set only if the worker does not hold them yet: a subtask
+ * that is run by the worker which forked it, or by a worker that already runs a task of the same
+ * request, runs without touching the {@link RequestContextHolder}. So the request context is set
+ * once per stolen batch of subtasks rather than once per leaf.
+ * </p>
+ *
+ * @param <V> the type of the result of the task
+ * @see DelegatingRequestContextForkJoinPool
+ * @since 1.1
+ */
+public abstract class DelegatingRequestContextRecursiveTask<V> extends RecursiveTask<V> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The {@link RequestAttributes} that the task will be ran as.
+     */
+    private final transient RequestAttributes delegateRequestAttributes;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextRecursiveTask} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to establish for the task or null
+     *                          to run the task without setting up any
+     */
+    protected DelegatingRequestContextRecursiveTask(RequestAttributes requestAttributes) {
+        this.delegateRequestAttributes = requestAttributes;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextRecursiveTask} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     */
+    protected DelegatingRequestContextRecursiveTask() {
+        this(RequestContextHolder.getRequestAttributes());
+    }
+
+    /**
+     * The main computation performed by this task with the {@link RequestAttributes} set up.
+     *
+     * @return the result of the computation
+     */
+    protected abstract V computeWithRequestContext();
+
+    @Override
+    protected final V compute() {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        if (this.delegateRequestAttributes == null || this.delegateRequestAttributes == originalRequestAttributes) {
+            return computeWithRequestContext();
+        }
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes);
+            return computeWithRequestContext();
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes);
+            }
+        }
+    }
+
+}
@@ -1,6 +1,5 @@
 package ru.spb.devclub.spring.web.context.request.concurrent;
 
-
 import org.springframework.util.Assert;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -14,6 +13,12 @@ import org.springframework.web.context.request.RequestContextHolder;
  * <p>
  * If there is a {@link RequestContextHolder} that already exists, it will be restored after
  * the {@link #run()} method is invoked.
+ * A worker of an {@link AffinityDelegatingRequestContextExecutorService} leaves the {@link RequestAttributes}
+ * of the task bound instead, for the next task of the same request.
+ * </p>
+ * <p>
+ * The wrapper keeps no state while running, so the same instance can run on several threads
+ * at once and can be submitted again and again.
  * </p>
  *
  * @see <a href="https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/concurrent/DelegatingSecurityContextRunnable.html">
@@ -21,7 +26,7 @@ import org.springframework.web.context.request.RequestContextHolder;
  * </a>
  * @since 1.0
  */
-public final class DelegatingRequestContextRunnable implements Runnable {
+public final class DelegatingRequestContextRunnable implements Runnable, RequestContextWrapper {
 
     private final Runnable delegate;
 
@@ -35,12 +40,6 @@ public final class DelegatingRequestContextRunnable implements Runnable {
      */
     private final boolean inheritable;
 
-    /**
-     * The {@link RequestAttributes} that was on the {@link RequestContextHolder} prior to
-     * being set to the delegateSecurityContext.
-     */
-    private RequestAttributes originalRequestAttributes;
-
     /**
      * Creates a new {@link DelegatingRequestContextRunnable}
      * with a specific {@link RequestAttributes} and {@code inheritable}.
@@ -99,20 +98,41 @@ public final class DelegatingRequestContextRunnable implements Runnable {
 
     @Override
     public void run() {
-        this.originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        if (RequestAffinityThread.enter(this.delegateRequestAttributes, this.inheritable)) {
+            this.delegate.run();
+            return;
+        }
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
         try {
             RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
             this.delegate.run();
         } finally {
-            if (this.originalRequestAttributes == null) {
+            if (originalRequestAttributes == null) {
                 RequestContextHolder.resetRequestAttributes();
             } else {
-                RequestContextHolder.setRequestAttributes(this.originalRequestAttributes, inheritable);
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
             }
-            this.originalRequestAttributes = null;
         }
     }
 
+    /**
+     * Returns the task that is run with the {@link RequestAttributes}.
+     *
+     * @return the delegate
+     */
+    Runnable getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the {@link RequestAttributes} that the delegate will be ran as.
+     *
+     * @return the {@link RequestAttributes}
+     */
+    RequestAttributes getRequestAttributes() {
+        return this.delegateRequestAttributes;
+    }
+
     @Override
     public String toString() {
         return this.delegate.toString();
@@ -0,0 +1,159 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Wraps a delegate {@link Supplier} with logic for setting up a {@link RequestAttributes}
+ * before invoking the delegate {@link Supplier} and then removing the
+ * {@link RequestAttributes} after the delegate has completed.
+ * </p>
+ * <p>
+ * If there is a {@link RequestAttributes} that already exists, it will be restored after
+ * the {@link #get()} method is invoked.
+ * </p>
+ * <p>
+ * Useful for the stages of a {@link java.util.concurrent.CompletableFuture}, for example
+ * {@code CompletableFuture.supplyAsync(DelegatingRequestContextSupplier.create(supplier, null), executor)}.
+ * </p>
+ *
+ * @param <T> the type of results supplied by the {@link Supplier}
+ * @since 1.1
+ */
+public final class DelegatingRequestContextSupplier<T> implements Supplier<T> {
+
+    private final Supplier<T> delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link Supplier} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link DelegatingRequestContextSupplier} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Supplier} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Supplier}. Cannot be null.
+     * @param inheritable       the {@code inheritable} in
+     *                          {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextSupplier(Supplier<T> delegate, RequestAttributes requestAttributes, boolean inheritable) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextSupplier} with a specific
+     * {@link RequestAttributes}.
+     *
+     * @param delegate          the delegate {@link Supplier} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Supplier}. Cannot be null.
+     */
+    public DelegatingRequestContextSupplier(Supplier<T> delegate, RequestAttributes requestAttributes) {
+        this(delegate, requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextSupplier} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate    the delegate {@link Supplier} to run under the current
+     *                    {@link RequestAttributes}. Cannot be null.
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public DelegatingRequestContextSupplier(Supplier<T> delegate, boolean inheritable) {
+        this(delegate, RequestContextHolder.getRequestAttributes(), inheritable);
+    }
+
+    /**
+     * Creates a new {@link DelegatingRequestContextSupplier} with the
+     * {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @param delegate the delegate {@link Supplier} to run under the current
+     *                 {@link RequestAttributes}. Cannot be null.
+     */
+    public DelegatingRequestContextSupplier(Supplier<T> delegate) {
+        this(delegate, false);
+    }
+
+    @Override
+    public T get() {
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes, inheritable);
+            return this.delegate.get();
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextSupplier} with the given
+     * {@link Supplier} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Supplier} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Supplier}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of results supplied by the {@link Supplier}
+     * @return created {@link DelegatingRequestContextSupplier}
+     */
+    public static <T> Supplier<T> create(Supplier<T> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextSupplier<>(delegate, requestAttributes)
+                : new DelegatingRequestContextSupplier<>(delegate);
+    }
+
+    /**
+     * Creates a {@link DelegatingRequestContextSupplier} with {@code inheritable=true} and with the given
+     * {@link Supplier} and {@link RequestAttributes}, but if the requestAttributes is null
+     * will defaults to the current {@link RequestAttributes} on the
+     * {@link RequestContextHolder}
+     *
+     * @param delegate          the delegate {@link Supplier} to run with
+     *                          the specified {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Supplier}.
+     *                          If null, defaults to {@link RequestContextHolder#getRequestAttributes()}
+     * @param <T>               the type of results supplied by the {@link Supplier}
+     * @return created {@link DelegatingRequestContextSupplier}
+     */
+    public static <T> Supplier<T> createInheritable(Supplier<T> delegate, RequestAttributes requestAttributes) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        return (requestAttributes != null)
+                ? new DelegatingRequestContextSupplier<>(delegate, requestAttributes, true)
+                : new DelegatingRequestContextSupplier<>(delegate, true);
+    }
+
+}
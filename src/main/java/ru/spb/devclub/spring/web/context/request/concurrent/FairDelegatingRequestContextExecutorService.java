@@ -0,0 +1,62 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>
+ * A {@link DelegatingRequestContextExecutorService} which takes turns between the requests that have
+ * submitted tasks instead of running the tasks in the order they were submitted, and wraps each
+ * {@link Runnable} in a {@link DelegatingRequestContextRunnable} and each {@link Callable} in a
+ * {@link DelegatingRequestContextCallable}.
+ * </p>
+ * <p>
+ * At most {@code parallelism} tasks run on the worker {@link ExecutorService} at the same time. The others
+ * wait in a queue of their request, and each task that completes starts the next task of the next request
+ * in turn, so a request that submits two tasks does not wait behind a request that has submitted five
+ * hundred. A task belongs to the request of the {@link RequestAttributes} bound to the thread that submits it.
+ * The worker {@link ExecutorService} is shut down along with this executor.
+ * </p>
+ * <p>
+ * A task that waits for another task of the same executor holds its slot in the meantime, so the
+ * {@code parallelism} should exceed the depth of such nesting, as for a bounded thread pool.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class FairDelegatingRequestContextExecutorService extends DelegatingRequestContextExecutorService {
+
+    /**
+     * Creates a new {@link FairDelegatingRequestContextExecutorService} that uses the specified
+     * {@link RequestAttributes}.
+     *
+     * @param workers           the {@link ExecutorService} to run the tasks on. Cannot be null.
+     * @param parallelism       the maximum number of tasks running on {@code workers} at the same time,
+     *                          usually its number of threads. Must be positive.
+     * @param requestAttributes the {@link RequestAttributes} to use for each
+     *                          {@link DelegatingRequestContextRunnable} and each
+     *                          {@link DelegatingRequestContextCallable} or null to default to the current
+     *                          {@link RequestAttributes}
+     */
+    public FairDelegatingRequestContextExecutorService(
+            ExecutorService workers,
+            int parallelism,
+            RequestAttributes requestAttributes) {
+        super(new RequestFairExecutorService(workers, parallelism), requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link FairDelegatingRequestContextExecutorService} that uses the current
+     * {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param workers     the {@link ExecutorService} to run the tasks on. Cannot be null.
+     * @param parallelism the maximum number of tasks running on {@code workers} at the same time,
+     *                    usually its number of threads. Must be positive.
+     */
+    public FairDelegatingRequestContextExecutorService(ExecutorService workers, int parallelism) {
+        this(workers, parallelism, null);
+    }
+
+}
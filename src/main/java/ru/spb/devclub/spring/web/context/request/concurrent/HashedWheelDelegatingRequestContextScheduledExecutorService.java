@@ -0,0 +1,90 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A {@link DelegatingRequestContextScheduledExecutorService} which keeps the scheduled tasks in a hashed
+ * timing wheel instead of the heap of a {@link ScheduledThreadPoolExecutor}, and wraps each {@link Runnable}
+ * in a {@link DelegatingRequestContextRunnable} and each {@link Callable} in a
+ * {@link DelegatingRequestContextCallable}.
+ * </p>
+ * <p>
+ * Scheduling and cancelling a task take constant time, and a cancelled task, along with the
+ * {@link RequestAttributes} it holds, is released within a tick, which suits many per-request timeouts
+ * that are mostly cancelled before they fire. In exchange a task runs up to one tick late. The tasks that
+ * are due run on the worker {@link ExecutorService}, which is shut down along with this executor.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class HashedWheelDelegatingRequestContextScheduledExecutorService
+        extends DelegatingRequestContextScheduledExecutorService {
+
+    /**
+     * The default duration of a tick in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+
+    /**
+     * The default number of ticks per wheel.
+     */
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * Creates a new {@link HashedWheelDelegatingRequestContextScheduledExecutorService} that uses the
+     * specified {@link RequestAttributes}.
+     *
+     * @param workers           the {@link ExecutorService} to run the tasks on. Cannot be null.
+     * @param tickDuration      the duration of a tick, at least one millisecond. Must be positive.
+     * @param unit              the {@link TimeUnit} of {@code tickDuration}. Cannot be null.
+     * @param ticksPerWheel     the number of ticks per wheel, rounded up to a power of two. Must be positive.
+     * @param requestAttributes the {@link RequestAttributes} to use for each
+     *                          {@link DelegatingRequestContextRunnable} and each
+     *                          {@link DelegatingRequestContextCallable} or null to default to the current
+     *                          {@link RequestAttributes}
+     */
+    public HashedWheelDelegatingRequestContextScheduledExecutorService(
+            ExecutorService workers,
+            long tickDuration,
+            TimeUnit unit,
+            int ticksPerWheel,
+            RequestAttributes requestAttributes) {
+        super(new HashedWheelScheduledExecutorService(workers, tickDuration, unit, ticksPerWheel),
+                requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link HashedWheelDelegatingRequestContextScheduledExecutorService} that uses the
+     * current {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param workers       the {@link ExecutorService} to run the tasks on. Cannot be null.
+     * @param tickDuration  the duration of a tick, at least one millisecond. Must be positive.
+     * @param unit          the {@link TimeUnit} of {@code tickDuration}. Cannot be null.
+     * @param ticksPerWheel the number of ticks per wheel, rounded up to a power of two. Must be positive.
+     */
+    public HashedWheelDelegatingRequestContextScheduledExecutorService(
+            ExecutorService workers,
+            long tickDuration,
+            TimeUnit unit,
+            int ticksPerWheel) {
+        this(workers, tickDuration, unit, ticksPerWheel, null);
+    }
+
+    /**
+     * Creates a new {@link HashedWheelDelegatingRequestContextScheduledExecutorService} with
+     * {@value #DEFAULT_TICKS_PER_WHEEL} ticks of {@value #DEFAULT_TICK_MILLIS} milliseconds that uses the
+     * current {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param workers the {@link ExecutorService} to run the tasks on. Cannot be null.
+     */
+    public HashedWheelDelegatingRequestContextScheduledExecutorService(ExecutorService workers) {
+        this(workers, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+}
@@ -0,0 +1,394 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * An internal {@link ScheduledExecutorService} that keeps the scheduled tasks in a hashed timing wheel,
+ * so that scheduling and cancelling a task take constant time, and hands the tasks that are due over
+ * to a worker {@link ExecutorService}.
+ * </p>
+ * <p>
+ * One timer thread advances the wheel every tick. Scheduling and cancelling only enqueue the task,
+ * and the timer thread links it into or unlinks it from its bucket on the next tick, so a cancelled task
+ * is released within a tick; a task cancelled before it has been linked is not enqueued again.
+ * A task runs at most one tick late.
+ * </p>
+ * <p>
+ * After {@link #shutdown()} the delayed tasks still run and the periodic tasks are cancelled;
+ * the worker {@link ExecutorService} is shut down once no delayed task is left. {@link #shutdownNow()}
+ * returns the tasks not yet linked into the wheel and cancels the others.
+ * </p>
+ *
+ * @see HashedWheelDelegatingRequestContextScheduledExecutorService
+ * @since 1.1
+ */
+final class HashedWheelScheduledExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final ExecutorService workers;
+
+    private final long tickNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final long startTime = System.nanoTime();
+
+    private final Queue<WheelTask<?>> scheduled = new ConcurrentLinkedQueue<>();
+
+    private final Queue<WheelTask<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final Thread timer;
+
+    private volatile boolean shutdown;
+
+    private volatile boolean terminated;
+
+    /**
+     * The number of tasks linked into the wheel, accessed by the timer thread only.
+     */
+    private int size;
+
+    HashedWheelScheduledExecutorService(ExecutorService workers, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        Assert.notNull(workers, "workers cannot be null");
+        Assert.notNull(unit, "unit cannot be null");
+        Assert.isTrue(tickDuration > 0, "tickDuration must be positive");
+        Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "ticksPerWheel must be positive");
+        this.workers = workers;
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        int length = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(length, 1)];
+        for (int i = 0; i < this.wheel.length; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = this.wheel.length - 1;
+        this.timer = new Thread(this::advance, "request-context-wheel-timer");
+        this.timer.setDaemon(true);
+        this.timer.start();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        Assert.notNull(command, "command cannot be null");
+        return schedule(new WheelTask<Void>(Executors.callable(command, null), deadline(delay, unit), 0L));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        Assert.notNull(callable, "callable cannot be null");
+        return schedule(new WheelTask<>(callable, deadline(delay, unit), 0L));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        Assert.notNull(command, "command cannot be null");
+        Assert.isTrue(period > 0, "period must be positive");
+        return schedule(new WheelTask<Void>(Executors.callable(command, null),
+                deadline(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        Assert.notNull(command, "command cannot be null");
+        Assert.isTrue(delay > 0, "delay must be positive");
+        return schedule(new WheelTask<Void>(Executors.callable(command, null),
+                deadline(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        this.workers.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        LockSupport.unpark(this.timer);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        this.terminated = true;
+        LockSupport.unpark(this.timer);
+        List<Runnable> tasks = new ArrayList<>(this.workers.shutdownNow());
+        WheelTask<?> task;
+        while ((task = this.scheduled.poll()) != null) {
+            if (!task.isCancelled()) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return !this.timer.isAlive() && this.workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.timer.join(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1L));
+        if (this.timer.isAlive()) {
+            return false;
+        }
+        return this.workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private <V> WheelTask<V> schedule(WheelTask<V> task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        this.scheduled.add(task);
+        if (this.terminated && this.scheduled.remove(task)) {
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    private static long deadline(long delay, TimeUnit unit) {
+        return System.nanoTime() + Math.max(unit.toNanos(delay), 0L);
+    }
+
+    /**
+     * The loop of the timer thread.
+     */
+    private void advance() {
+        long tick = 0;
+        boolean periodicCancelled = false;
+        try {
+            while (!this.terminated) {
+                long tickDeadline = this.startTime + (tick + 1) * this.tickNanos;
+                long sleep;
+                while (!this.terminated && (sleep = tickDeadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, sleep);
+                }
+                unlinkCancelled();
+                if (this.shutdown && !periodicCancelled) {
+                    cancelPeriodic();
+                    periodicCancelled = true;
+                }
+                linkScheduled(tick);
+                expire(this.wheel[(int) (tick & this.mask)], tickDeadline);
+                tick++;
+                if (this.shutdown && this.size == 0 && this.scheduled.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            this.terminated = true;
+            cancelAll();
+            this.workers.shutdown();
+        }
+    }
+
+    private void unlinkCancelled() {
+        WheelTask<?> task;
+        while ((task = this.cancelled.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+                this.size--;
+            }
+        }
+    }
+
+    private void cancelPeriodic() {
+        for (Bucket bucket : this.wheel) {
+            for (WheelTask<?> task = bucket.head; task != null; task = task.next) {
+                if (task.period != 0L) {
+                    task.cancel(false);
+                }
+            }
+        }
+        unlinkCancelled();
+    }
+
+    private void cancelAll() {
+        for (Bucket bucket : this.wheel) {
+            WheelTask<?> task;
+            while ((task = bucket.head) != null) {
+                bucket.remove(task);
+                task.cancel(false);
+            }
+        }
+        this.size = 0;
+        this.cancelled.clear();
+    }
+
+    private void linkScheduled(long tick) {
+        WheelTask<?> task;
+        while ((task = this.scheduled.poll()) != null) {
+            task.linked = true;
+            if (task.isCancelled()) {
+                continue;
+            }
+            if (this.shutdown && task.period != 0L) {
+                task.cancel(false);
+                continue;
+            }
+            long ticks = Math.max((task.deadline - this.startTime) / this.tickNanos, tick);
+            task.rounds = (ticks - tick) / this.wheel.length;
+            this.wheel[(int) (ticks & this.mask)].add(task);
+            this.size++;
+        }
+    }
+
+    private void expire(Bucket bucket, long tickDeadline) {
+        WheelTask<?> task = bucket.head;
+        while (task != null) {
+            WheelTask<?> next = task.next;
+            if (task.rounds <= 0 && task.deadline <= tickDeadline) {
+                bucket.remove(task);
+                this.size--;
+                dispatch(task);
+            } else {
+                task.rounds--;
+            }
+            task = next;
+        }
+    }
+
+    private void dispatch(WheelTask<?> task) {
+        try {
+            this.workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.reject(e);
+        }
+    }
+
+    /**
+     * A list of the tasks of a bucket, accessed by the timer thread only.
+     */
+    private static final class Bucket {
+
+        private WheelTask<?> head;
+
+        private WheelTask<?> tail;
+
+        void add(WheelTask<?> task) {
+            task.bucket = this;
+            if (this.head == null) {
+                this.head = task;
+            } else {
+                this.tail.next = task;
+                task.prev = this.tail;
+            }
+            this.tail = task;
+        }
+
+        void remove(WheelTask<?> task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                this.head = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            } else {
+                this.tail = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+
+    }
+
+    private final class WheelTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+        /**
+         * The period of a fixed rate task, the negated delay of a fixed delay task or zero.
+         */
+        private final long period;
+
+        private volatile long deadline;
+
+        /**
+         * Whether the timer thread may have linked the task into the wheel, set before it checks
+         * whether the task has been cancelled.
+         */
+        private volatile boolean linked;
+
+        private long rounds;
+
+        private Bucket bucket;
+
+        private WheelTask<?> prev;
+
+        private WheelTask<?> next;
+
+        WheelTask(Callable<V> callable, long deadline, long period) {
+            super(callable);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && this.linked) {
+                HashedWheelScheduledExecutorService.this.cancelled.add(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (this.period == 0L) {
+                super.run();
+            } else if (runAndReset()) {
+                this.deadline = this.period > 0 ? this.deadline + this.period : System.nanoTime() - this.period;
+                try {
+                    schedule(this);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+        }
+
+        void reject(RejectedExecutionException e) {
+            setException(e);
+        }
+
+    }
+
+}
@@ -3,6 +3,7 @@ package ru.spb.devclub.spring.web.context.request.concurrent;
 import org.springframework.web.context.request.RequestAttributes;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -46,22 +47,46 @@ public class InheritableDelegatingRequestContextScheduledExecutorService
 
     @Override
     public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-        return getDelegate().schedule(wrap(command), delay, unit);
+        Runnable wrapped = wrap(command);
+        try {
+            return getDelegate().schedule(wrapped, delay, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-        return getDelegate().schedule(wrap(callable), delay, unit);
+        Callable<V> wrapped = wrap(callable);
+        try {
+            return getDelegate().schedule(wrapped, delay, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-        return getDelegate().scheduleAtFixedRate(wrap(command), initialDelay, period, unit);
+        Runnable wrapped = wrap(command);
+        try {
+            return getDelegate().scheduleAtFixedRate(wrapped, initialDelay, period, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-        return getDelegate().scheduleWithFixedDelay(wrap(command), initialDelay, delay, unit);
+        Runnable wrapped = wrap(command);
+        try {
+            return getDelegate().scheduleWithFixedDelay(wrapped, initialDelay, delay, unit);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     private ScheduledExecutorService getDelegate() {
@@ -0,0 +1,33 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+/**
+ * An internal {@link ContextAccessor} of the {@link LocaleContextHolder}.
+ *
+ * @see ContextAccessor#localeContext(boolean)
+ * @since 1.1
+ */
+final class LocaleContextAccessor implements ContextAccessor<LocaleContext> {
+
+    /**
+     * @see LocaleContextHolder#setLocaleContext(LocaleContext, boolean)
+     */
+    private final boolean inheritable;
+
+    LocaleContextAccessor(boolean inheritable) {
+        this.inheritable = inheritable;
+    }
+
+    @Override
+    public LocaleContext getValue() {
+        return LocaleContextHolder.getLocaleContext();
+    }
+
+    @Override
+    public void setValue(LocaleContext value) {
+        LocaleContextHolder.setLocaleContext(value, this.inheritable);
+    }
+
+}
@@ -0,0 +1,34 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * An internal {@link ContextAccessor} of the SLF4J {@link MDC}.
+ *
+ * @see ContextAccessor#mdc()
+ * @since 1.1
+ */
+final class MdcContextAccessor implements ContextAccessor<Map<String, String>> {
+
+    static final MdcContextAccessor INSTANCE = new MdcContextAccessor();
+
+    private MdcContextAccessor() {
+    }
+
+    @Override
+    public Map<String, String> getValue() {
+        return MDC.getCopyOfContextMap();
+    }
+
+    @Override
+    public void setValue(Map<String, String> value) {
+        if (value != null) {
+            MDC.setContextMap(value);
+        } else {
+            MDC.clear();
+        }
+    }
+
+}
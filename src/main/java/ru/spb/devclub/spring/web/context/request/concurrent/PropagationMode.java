@@ -0,0 +1,37 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * How a wrapped task gets its {@link org.springframework.web.context.request.RequestAttributes}.
+ *
+ * @see DelegatingRequestContextExecutor#setPropagationMode(PropagationMode)
+ * @since 1.1
+ */
+public enum PropagationMode {
+
+    /**
+     * Binds to the {@link RequestContextHolder} with {@link DelegatingRequestContextRunnable}
+     * and {@link DelegatingRequestContextCallable}.
+     */
+    THREAD_LOCAL,
+
+    /**
+     * Binds to the {@link ScopedRequestContext} and, with {@code inheritable=false}, to the
+     * {@link RequestContextHolder}, so code that reads {@link RequestContextHolder#getRequestAttributes()}
+     * keeps working.
+     * <p>
+     * This mode does not save any {@link ThreadLocal} writes over {@link #THREAD_LOCAL}: the
+     * {@link RequestContextHolder} is still set and restored, which touches both of its {@link ThreadLocal}s,
+     * and before Java 25 the {@link ScopedRequestContext} is one more {@link ThreadLocal}. It only adds the
+     * {@link ScopedRequestContext} accessor for code that is being migrated to it.
+     */
+    SCOPED_VALUE_WITH_HOLDER,
+
+    /**
+     * Binds to the {@link ScopedRequestContext} only; the {@link RequestContextHolder} is not touched
+     * and the task must read {@link ScopedRequestContext#getRequestAttributes()}.
+     */
+    SCOPED_VALUE
+
+}
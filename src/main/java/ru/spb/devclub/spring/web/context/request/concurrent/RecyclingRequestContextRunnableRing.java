@@ -0,0 +1,160 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * <p>
+ * An internal ring of preallocated wrappers that set up {@link RequestAttributes} like a
+ * {@link DelegatingRequestContextRunnable} and return to the ring after they have run, so that
+ * submitting a task does not allocate a wrapper while the ring has a free one.
+ * </p>
+ * <p>
+ * A wrapper is taken from a few slots probed from a random start, so the submitting threads rarely
+ * contend for the same slot; if all of them are in use a new {@link DelegatingRequestContextRunnable} is
+ * created instead. A wrapper can be run once per submission: running it again while it is free in the ring
+ * fails with an {@link IllegalStateException} rather than running nothing silently.
+ * </p>
+ * <p>
+ * A wrapper returns to the ring only when it runs or when it is {@link #abandon(Object) abandoned} because
+ * the executor has rejected it. A wrapper that the executor accepts and then drops without running, for
+ * example through a discarding rejection policy or {@code shutdownNow}, is never reclaimed, so the ring suits
+ * only executors that run or reject every task.
+ * </p>
+ *
+ * @see AbstractDelegatingRequestContextSupport#setWrapperRecycling(int)
+ * @since 1.1
+ */
+final class RecyclingRequestContextRunnableRing {
+
+    private static final int PROBES = 4;
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    RecyclingRequestContextRunnableRing(int capacity) {
+        Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "capacity must be positive");
+        int length = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[Math.max(length, 1)];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.mask = this.slots.length - 1;
+    }
+
+    /**
+     * Returns a free wrapper of the ring, or a new {@link DelegatingRequestContextRunnable} if there is none.
+     *
+     * @param delegate    the {@link Runnable} to run
+     * @param attributes  the {@link RequestAttributes} to run it with
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     * @return the wrapper
+     */
+    Runnable acquire(Runnable delegate, RequestAttributes attributes, boolean inheritable) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < PROBES; i++) {
+            Slot slot = this.slots[(start + i) & this.mask];
+            if (slot.state == Slot.FREE && Slot.STATE.compareAndSet(slot, Slot.FREE, Slot.QUEUED)) {
+                slot.delegate = delegate;
+                slot.attributes = attributes;
+                slot.inheritable = inheritable;
+                return slot;
+            }
+        }
+        return new DelegatingRequestContextRunnable(delegate, attributes, inheritable);
+    }
+
+    /**
+     * Returns a wrapper that will not run, because the executor has rejected it, to its ring.
+     *
+     * @param task the task returned by {@link #acquire(Runnable, RequestAttributes, boolean)}
+     */
+    static void abandon(Object task) {
+        if (task instanceof Slot) {
+            Slot slot = (Slot) task;
+            if (Slot.STATE.compareAndSet(slot, Slot.QUEUED, Slot.RUNNING)) {
+                slot.release();
+            }
+        }
+    }
+
+    int getFreeCount() {
+        int count = 0;
+        for (Slot slot : this.slots) {
+            if (slot.state == Slot.FREE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Slot implements Runnable, RequestContextWrapper {
+
+        private static final int FREE = 0;
+
+        private static final int QUEUED = 1;
+
+        private static final int RUNNING = 2;
+
+        private static final AtomicIntegerFieldUpdater<Slot> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Slot.class, "state");
+
+        private volatile int state;
+
+        private Runnable delegate;
+
+        private RequestAttributes attributes;
+
+        private boolean inheritable;
+
+        @Override
+        public void run() {
+            if (!STATE.compareAndSet(this, QUEUED, RUNNING)) {
+                throw new IllegalStateException("Recycled wrapper has already run");
+            }
+            Runnable delegate = this.delegate;
+            RequestAttributes attributes = this.attributes;
+            boolean inheritable = this.inheritable;
+            try {
+                if (RequestAffinityThread.enter(attributes, inheritable)) {
+                    delegate.run();
+                    return;
+                }
+                RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+                try {
+                    RequestContextHolder.setRequestAttributes(attributes, inheritable);
+                    delegate.run();
+                } finally {
+                    if (originalRequestAttributes == null) {
+                        RequestContextHolder.resetRequestAttributes();
+                    } else {
+                        RequestContextHolder.setRequestAttributes(originalRequestAttributes, inheritable);
+                    }
+                }
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            this.delegate = null;
+            this.attributes = null;
+            this.state = FREE;
+        }
+
+        @Override
+        public String toString() {
+            Runnable delegate = this.delegate;
+            return delegate != null ? delegate.toString() : super.toString();
+        }
+
+    }
+
+}
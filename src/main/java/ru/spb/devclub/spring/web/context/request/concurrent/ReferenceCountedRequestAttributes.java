@@ -0,0 +1,285 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.request.AbstractRequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A {@link ServletRequestAttributes} shared by a request and the tasks it submits, which keeps
+ * request scoped beans alive until the last of them completes. The request holds one reference,
+ * released when its {@link ServletRequestAttributes} complete; each task holds one more.
+ * </p>
+ * <p>
+ * While the request is active all calls are delegated to its {@link ServletRequestAttributes}.
+ * When it completes, the request attributes are detached into a local copy that the tasks keep
+ * reading and writing. Request scope destruction callbacks run when the last reference is released,
+ * on the thread that releases it: those registered through this instance, such as those of request
+ * scoped beans created in a task, and those registered on the request's own
+ * {@link ServletRequestAttributes} before a task was submitted, such as those of request scoped beans
+ * created on the request thread, which are moved over whenever a task retains the request.
+ * </p>
+ * <p>
+ * Destruction callbacks registered on the request's own {@link ServletRequestAttributes} after the last
+ * task of the request was submitted still run when the request completes. After that {@link #getRequest()}
+ * must not be used, since the container may recycle the request.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setDeferRequestDestruction(boolean)
+ * @since 1.1
+ */
+public final class ReferenceCountedRequestAttributes extends ServletRequestAttributes
+        implements RetainableRequestAttributes {
+
+    private static final String ATTRIBUTE_NAME = ReferenceCountedRequestAttributes.class.getName();
+
+    /**
+     * The request destruction callbacks of an {@link AbstractRequestAttributes}
+     * or null if this version of Spring does not have them.
+     */
+    private static final Field REQUEST_DESTRUCTION_CALLBACKS = findRequestDestructionCallbacks();
+
+    private final ServletRequestAttributes requestAttributes;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+
+    /**
+     * The request attributes detached when the request completed or null while it is active.
+     */
+    private volatile Map<String, Object> detachedAttributes;
+
+    private ReferenceCountedRequestAttributes(ServletRequestAttributes requestAttributes) {
+        super(requestAttributes.getRequest(), requestAttributes.getResponse());
+        this.requestAttributes = requestAttributes;
+    }
+
+    /**
+     * Returns the {@link ReferenceCountedRequestAttributes} of the request, creating it on the first call.
+     *
+     * @param requestAttributes the {@link ServletRequestAttributes} of an active request
+     *                          or a {@link ReferenceCountedRequestAttributes}. Cannot be null.
+     * @return the {@link ReferenceCountedRequestAttributes} shared by the request and its tasks
+     * @throws IllegalStateException if the request is not active anymore
+     */
+    public static ReferenceCountedRequestAttributes of(ServletRequestAttributes requestAttributes) {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        if (requestAttributes instanceof ReferenceCountedRequestAttributes) {
+            return (ReferenceCountedRequestAttributes) requestAttributes;
+        }
+        synchronized (requestAttributes) {
+            Object existing = requestAttributes.getAttribute(ATTRIBUTE_NAME, SCOPE_REQUEST);
+            if (existing instanceof ReferenceCountedRequestAttributes) {
+                return (ReferenceCountedRequestAttributes) existing;
+            }
+            ReferenceCountedRequestAttributes counted = new ReferenceCountedRequestAttributes(requestAttributes);
+            requestAttributes.setAttribute(ATTRIBUTE_NAME, counted, SCOPE_REQUEST);
+            requestAttributes.registerDestructionCallback(ATTRIBUTE_NAME, counted::detach, SCOPE_REQUEST);
+            counted.moveDestructionCallbacks();
+            return counted;
+        }
+    }
+
+    /**
+     * Adds a reference, unless the last one has already been released.
+     *
+     * @return {@code true} if the reference has been added
+     */
+    @Override
+    public boolean retain() {
+        int references;
+        do {
+            references = this.references.get();
+            if (references == 0) {
+                return false;
+            }
+        } while (!this.references.compareAndSet(references, references + 1));
+        moveDestructionCallbacks();
+        return true;
+    }
+
+    /**
+     * Releases a reference and runs the deferred destruction callbacks if it was the last one.
+     *
+     * @throws IllegalStateException if there is no reference to release
+     */
+    @Override
+    public void release() {
+        int references = this.references.decrementAndGet();
+        if (references < 0) {
+            this.references.incrementAndGet();
+            throw new IllegalStateException("No reference to release");
+        }
+        if (references == 0) {
+            runDestructionCallbacks();
+        }
+    }
+
+    int getReferenceCount() {
+        return this.references.get();
+    }
+
+    ServletRequestAttributes getRequestAttributes() {
+        return this.requestAttributes;
+    }
+
+    boolean isDetached() {
+        return this.detachedAttributes != null;
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        Map<String, Object> detached = this.detachedAttributes;
+        if (scope == SCOPE_REQUEST && detached != null) {
+            return detached.get(name);
+        }
+        return this.requestAttributes.getAttribute(name, scope);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        Map<String, Object> detached = this.detachedAttributes;
+        if (scope == SCOPE_REQUEST && detached != null) {
+            detached.put(name, value);
+        } else {
+            this.requestAttributes.setAttribute(name, value, scope);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        Map<String, Object> detached = this.detachedAttributes;
+        if (scope == SCOPE_REQUEST && detached != null) {
+            detached.remove(name);
+        } else {
+            this.requestAttributes.removeAttribute(name, scope);
+        }
+        if (scope == SCOPE_REQUEST) {
+            synchronized (this.destructionCallbacks) {
+                this.destructionCallbacks.remove(name);
+            }
+        }
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        Map<String, Object> detached = this.detachedAttributes;
+        if (scope == SCOPE_REQUEST && detached != null) {
+            return detached.keySet().toArray(new String[0]);
+        }
+        return this.requestAttributes.getAttributeNames(scope);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        if (scope != SCOPE_REQUEST) {
+            this.requestAttributes.registerDestructionCallback(name, callback, scope);
+            return;
+        }
+        Assert.notNull(name, "Name must not be null");
+        Assert.notNull(callback, "Callback must not be null");
+        synchronized (this.destructionCallbacks) {
+            this.destructionCallbacks.put(name, callback);
+        }
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return this.requestAttributes.resolveReference(key);
+    }
+
+    @Override
+    public String getSessionId() {
+        return this.requestAttributes.getSessionId();
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return this.requestAttributes.getSessionMutex();
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceCountedRequestAttributes{" + this.requestAttributes + ", references=" + this.references + '}';
+    }
+
+    /**
+     * Detaches the request attributes when the request completes, after the changes of the tasks that
+     * {@link ConcurrentRequestAttributes} hold have been written back, and releases the reference of the request.
+     */
+    private void detach() {
+        ConcurrentRequestAttributes.flushIfIdle(this);
+        Map<String, Object> detached = new ConcurrentHashMap<>();
+        for (String name : this.requestAttributes.getAttributeNames(SCOPE_REQUEST)) {
+            Object value = this.requestAttributes.getAttribute(name, SCOPE_REQUEST);
+            if (value != null && !ATTRIBUTE_NAME.equals(name)) {
+                detached.put(name, value);
+            }
+        }
+        this.detachedAttributes = detached;
+        release();
+    }
+
+    /**
+     * Moves the request destruction callbacks registered on the request's own {@link ServletRequestAttributes}
+     * over to this instance, so that they are deferred too, while the request is active.
+     */
+    private void moveDestructionCallbacks() {
+        if (REQUEST_DESTRUCTION_CALLBACKS == null || this.detachedAttributes != null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Runnable> callbacks = (Map<String, Runnable>) ReflectionUtils.getField(
+                REQUEST_DESTRUCTION_CALLBACKS, this.requestAttributes);
+        if (callbacks == null) {
+            return;
+        }
+        synchronized (callbacks) {
+            if (callbacks.size() <= 1) {
+                return;
+            }
+            synchronized (this.destructionCallbacks) {
+                Iterator<Map.Entry<String, Runnable>> iterator = callbacks.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Runnable> callback = iterator.next();
+                    if (!ATTRIBUTE_NAME.equals(callback.getKey())) {
+                        this.destructionCallbacks.putIfAbsent(callback.getKey(), callback.getValue());
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private static Field findRequestDestructionCallbacks() {
+        Field field = ReflectionUtils.findField(AbstractRequestAttributes.class, "requestDestructionCallbacks",
+                Map.class);
+        if (field != null) {
+            ReflectionUtils.makeAccessible(field);
+        }
+        return field;
+    }
+
+    private void runDestructionCallbacks() {
+        List<Runnable> callbacks;
+        synchronized (this.destructionCallbacks) {
+            callbacks = new ArrayList<>(this.destructionCallbacks.values());
+            this.destructionCallbacks.clear();
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * An internal {@link ExecutorService} that runs each task on one of a fixed set of
+ * {@link RequestAffinityThread workers}, chosen by the request of the specified {@link RequestAttributes}
+ * or of those bound to the submitting thread, so that all the tasks of a request run one after another
+ * on the same worker.
+ * </p>
+ * <p>
+ * After {@link #shutdown()} the queued tasks still run. {@link #shutdownNow()} returns the queued tasks
+ * and interrupts the running ones.
+ * </p>
+ *
+ * @see AffinityDelegatingRequestContextExecutorService
+ * @since 1.1
+ */
+final class RequestAffinityExecutorService extends AbstractExecutorService {
+
+    private final RequestAffinityThread[] workers;
+
+    /**
+     * The {@link RequestAttributes} the tasks run with or null if they run with the current ones.
+     */
+    private final RequestAttributes requestAttributes;
+
+    private volatile boolean shutdown;
+
+    RequestAffinityExecutorService(int workers, String threadNamePrefix, RequestAttributes requestAttributes) {
+        Assert.isTrue(workers > 0, "workers must be positive");
+        Assert.notNull(threadNamePrefix, "threadNamePrefix cannot be null");
+        this.requestAttributes = requestAttributes;
+        this.workers = new RequestAffinityThread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new RequestAffinityThread(threadNamePrefix + (i + 1));
+            this.workers[i].start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Assert.notNull(command, "command cannot be null");
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        RequestAttributes attributes = ConcurrentRequestAttributes.unwrap(this.requestAttributes != null
+                ? this.requestAttributes
+                : RequestContextHolder.getRequestAttributes());
+        Runnable task = attributes != null ? command : new Unbound(command);
+        BlockingQueue<Runnable> queue = this.workers[index(attributes)].getQueue();
+        queue.add(task);
+        if (this.shutdown && queue.remove(task)) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        for (RequestAffinityThread worker : this.workers) {
+            worker.getQueue().add(RequestAffinityThread.SHUTDOWN);
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        List<Runnable> tasks = new ArrayList<>();
+        for (RequestAffinityThread worker : this.workers) {
+            List<Runnable> queued = new ArrayList<>();
+            worker.getQueue().drainTo(queued);
+            worker.getQueue().add(RequestAffinityThread.SHUTDOWN);
+            worker.interrupt();
+            for (Runnable task : queued) {
+                if (task != RequestAffinityThread.SHUTDOWN) {
+                    tasks.add(task instanceof Unbound ? ((Unbound) task).task : task);
+                }
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        if (!this.shutdown) {
+            return false;
+        }
+        for (RequestAffinityThread worker : this.workers) {
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (RequestAffinityThread worker : this.workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L) {
+                return isTerminated();
+            }
+            TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+        }
+        return isTerminated();
+    }
+
+    private int index(RequestAttributes attributes) {
+        int hash = System.identityHashCode(attributes);
+        return Math.floorMod(hash ^ (hash >>> 16), this.workers.length);
+    }
+
+    /**
+     * A task submitted without {@link RequestAttributes}, before which the worker resets the ones it has left bound.
+     */
+    static final class Unbound implements Runnable {
+
+        private final Runnable task;
+
+        private Unbound(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            this.task.run();
+        }
+
+        @Override
+        public String toString() {
+            return this.task.toString();
+        }
+
+    }
+
+}
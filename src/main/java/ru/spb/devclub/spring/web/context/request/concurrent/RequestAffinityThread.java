@@ -0,0 +1,124 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>
+ * An internal worker of a {@link RequestAffinityExecutorService} that runs the tasks of its queue one by one
+ * and leaves the {@link RequestAttributes} of a task bound to the {@link RequestContextHolder} after it
+ * completes, so that the next task of the same request does not set them again. The
+ * {@link RequestAttributes} are reset once the queue is empty.
+ * </p>
+ * <p>
+ * Only the outermost {@link DelegatingRequestContextRunnable} or {@link DelegatingRequestContextCallable}
+ * of a task the worker takes from its queue binds its {@link RequestAttributes} this way; nested ones
+ * set and restore them as usual. A task whose outermost wrapper sets up the context another way, such as
+ * a {@link ScopedRequestContextRunnable} or a wrapper of a {@link ContextSnapshot}, starts with the
+ * {@link RequestAttributes} left bound by an earlier task reset, and its nested wrappers restore theirs too.
+ * </p>
+ *
+ * @see AffinityDelegatingRequestContextExecutorService
+ * @since 1.1
+ */
+final class RequestAffinityThread extends Thread {
+
+    /**
+     * The task that tells a worker that its executor has been shut down.
+     */
+    static final Runnable SHUTDOWN = () -> {
+    };
+
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Whether the running task has been taken from the queue and has not bound its {@link RequestAttributes} yet.
+     */
+    private boolean dispatching;
+
+    RequestAffinityThread(String name) {
+        super(name);
+    }
+
+    /**
+     * Binds the specified {@link RequestAttributes} for the task this worker is running, if called on a worker
+     * from the outermost wrapper of the task, unless they are bound already.
+     *
+     * @param attributes  the {@link RequestAttributes} of the task
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     * @return true if bound, in which case they should not be restored after the task, or false if
+     * the caller should set and restore them itself
+     */
+    static boolean enter(RequestAttributes attributes, boolean inheritable) {
+        Thread thread = Thread.currentThread();
+        if (!(thread instanceof RequestAffinityThread) || !((RequestAffinityThread) thread).dispatching) {
+            return false;
+        }
+        ((RequestAffinityThread) thread).dispatching = false;
+        if (RequestContextHolder.getRequestAttributes() != attributes) {
+            RequestContextHolder.setRequestAttributes(attributes, inheritable);
+        }
+        return true;
+    }
+
+    /**
+     * Resets the {@link RequestAttributes} a worker has left bound, if called on a worker from the outermost
+     * wrapper of a task that sets up its context without {@link #enter(RequestAttributes, boolean)}, so that
+     * the task does not see the {@link RequestAttributes} of an earlier task and the wrappers nested in it
+     * restore theirs.
+     */
+    static void enterUnbound() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof RequestAffinityThread && ((RequestAffinityThread) thread).dispatching) {
+            ((RequestAffinityThread) thread).dispatching = false;
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    BlockingQueue<Runnable> getQueue() {
+        return this.queue;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Runnable task = this.queue.poll();
+            if (task == null) {
+                RequestContextHolder.resetRequestAttributes();
+                try {
+                    task = this.queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            if (task == SHUTDOWN) {
+                while ((task = this.queue.poll()) != null) {
+                    runTask(task);
+                }
+                RequestContextHolder.resetRequestAttributes();
+                return;
+            }
+            runTask(task);
+        }
+    }
+
+    private void runTask(Runnable task) {
+        if (task instanceof RequestAffinityExecutorService.Unbound) {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        this.dispatching = true;
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            getUncaughtExceptionHandler().uncaughtException(this, e);
+        } finally {
+            this.dispatching = false;
+            Thread.interrupted();
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+/**
+ * A strategy for capturing the {@link RequestAttributes} that a wrapped task will be ran as.
+ * It is applied once per task at the time the task is submitted.
+ *
+ * @see DelegatingRequestContextExecutor#setCaptureStrategy(RequestAttributesCaptureStrategy)
+ * @see SnapshotRequestAttributesCaptureStrategy
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface RequestAttributesCaptureStrategy {
+
+    /**
+     * Captures the {@link RequestAttributes} to establish for a wrapped task.
+     *
+     * @param requestAttributes the specified or the current {@link RequestAttributes}. Never null.
+     * @return the {@link RequestAttributes} to establish for the task. Cannot be null.
+     */
+    RequestAttributes capture(RequestAttributes requestAttributes);
+
+}
@@ -0,0 +1,199 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * An internal limit on the number of tasks of one request that run on an executor at the same time.
+ * The excess tasks of the request wait in a queue of its own instead of the queue of the executor,
+ * and each task that completes hands its slot over to the next one.
+ * </p>
+ * <p>
+ * A task submitted by a running task of the same request is not limited, since the running task
+ * may wait for it while holding a slot. A queued task that the executor rejects once a slot frees up,
+ * for instance because it has been shut down, runs on the thread of the completed task instead, as
+ * the task has already been accepted.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setMaxConcurrencyPerRequest(int)
+ * @since 1.1
+ */
+final class RequestBulkhead {
+
+    private static final ThreadLocal<RequestBulkhead> CURRENT = new ThreadLocal<>();
+
+    private static final AtomicLong ATTRIBUTE_SEQUENCE = new AtomicLong();
+
+    private final int maxConcurrency;
+
+    private final Queue<Pending> queue = new ArrayDeque<>();
+
+    private int running;
+
+    RequestBulkhead(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns a new name of the request attribute that holds the {@link RequestBulkhead}s of one executor.
+     *
+     * @return the name of the request attribute
+     */
+    static String newAttributeName() {
+        return RequestBulkhead.class.getName() + "." + ATTRIBUTE_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Returns the {@link RequestBulkhead} of the request kept as the specified request attribute, creating
+     * it on the first call, so that it lives as long as the request.
+     *
+     * @param attributes     the {@link RequestAttributes} of the request
+     * @param attributeName  the name of the request attribute
+     * @param maxConcurrency the maximum number of tasks of the request that run at the same time
+     * @return the {@link RequestBulkhead} of the request or null if the request has ended or the
+     * {@link RequestAttributes} cannot hold it, such as {@link SnapshotRequestAttributes}
+     */
+    static RequestBulkhead of(RequestAttributes attributes, String attributeName, int maxConcurrency) {
+        attributes = ConcurrentRequestAttributes.unwrap(attributes);
+        try {
+            Object existing = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+            if (existing instanceof RequestBulkhead) {
+                return (RequestBulkhead) existing;
+            }
+            synchronized (attributes) {
+                existing = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+                if (existing instanceof RequestBulkhead) {
+                    return (RequestBulkhead) existing;
+                }
+                RequestBulkhead bulkhead = new RequestBulkhead(maxConcurrency);
+                attributes.setAttribute(attributeName, bulkhead, RequestAttributes.SCOPE_REQUEST);
+                return bulkhead;
+            }
+        } catch (IllegalStateException e) {
+            // the request attributes of a completed request cannot be read or written
+            return null;
+        } catch (UnsupportedOperationException e) {
+            // immutable request attributes, which are not bound to the live request
+            return null;
+        }
+    }
+
+    /**
+     * Executes a task on the executor if the request has a free slot, or queues it otherwise.
+     *
+     * @param task     the task to execute
+     * @param executor the {@link Executor} to execute the task on
+     * @throws RejectedExecutionException if the executor rejects the task right away
+     */
+    void execute(Runnable task, Executor executor) {
+        if (CURRENT.get() == this) {
+            executor.execute(task);
+            return;
+        }
+        Pending pending = new Pending(task, executor);
+        synchronized (this) {
+            if (this.running >= this.maxConcurrency) {
+                this.queue.add(pending);
+                return;
+            }
+            this.running++;
+        }
+        try {
+            executor.execute(pending);
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    synchronized int getQueuedCount() {
+        return this.queue.size();
+    }
+
+    /**
+     * Hands the slot of a completed task over to the next queued one, or frees it.
+     */
+    private void release() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = this.queue.poll();
+                if (next == null) {
+                    this.running--;
+                    return;
+                }
+            }
+            try {
+                next.executor.execute(next);
+                return;
+            } catch (RejectedExecutionException e) {
+                next.runHere();
+            }
+        }
+    }
+
+    private final class Pending implements Runnable, RequestContextWrapper.Decorator {
+
+        private final Runnable task;
+
+        private final Executor executor;
+
+        private Pending(Runnable task, Executor executor) {
+            this.task = task;
+            this.executor = executor;
+        }
+
+        @Override
+        public Object getDecorated() {
+            return this.task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runTask();
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Runs the task on the thread of a completed one, which keeps its slot for the next queued task.
+         */
+        private void runHere() {
+            try {
+                runTask();
+            } catch (RuntimeException | Error e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        private void runTask() {
+            RequestBulkhead previous = CURRENT.get();
+            CURRENT.set(RequestBulkhead.this);
+            try {
+                this.task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.task.toString();
+        }
+
+    }
+
+}
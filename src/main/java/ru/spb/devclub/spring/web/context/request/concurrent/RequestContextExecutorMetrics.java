@@ -0,0 +1,228 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * <p>
+ * Micrometer meters of a delegating executor, tagged with the {@code name} of the executor:
+ * </p>
+ * <ul>
+ * <li>{@code request.context.executor.queued} - the time from the submission of a task to its start,
+ * including the delay of a scheduled task</li>
+ * <li>{@code request.context.executor.execution} - the time the task itself runs</li>
+ * <li>{@code request.context.executor.context} - the time spent on setting up and restoring
+ * the request context around the task</li>
+ * <li>{@code request.context.executor.without.context} - the tasks submitted without
+ * {@link org.springframework.web.context.request.RequestAttributes}</li>
+ * <li>{@code request.context.executor.rejected} - the submissions rejected by the delegate</li>
+ * <li>{@code request.context.executor.collapsed} - the tasks submitted as is because they already set up
+ * a request context, for example by another delegating executor in the chain</li>
+ * <li>{@code request.context.executor.expired} - the tasks not submitted or not run because their request
+ * has passed its {@link RequestDeadline}</li>
+ * </ul>
+ * <p>
+ * Tasks passed through without a request context are counted but not timed. Micrometer counters
+ * and timers accumulate into striped adders, so recording does not contend between workers.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setMetrics(RequestContextExecutorMetrics)
+ * @since 1.1
+ */
+public final class RequestContextExecutorMetrics {
+
+    private final Timer queuedTimer;
+
+    private final Timer executionTimer;
+
+    private final Timer contextTimer;
+
+    private final Counter withoutContextCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter collapsedCounter;
+
+    private final Counter expiredCounter;
+
+    /**
+     * Creates a new {@link RequestContextExecutorMetrics} and registers its meters.
+     *
+     * @param registry     the {@link MeterRegistry} to register the meters in. Cannot be null.
+     * @param executorName the value of the {@code name} tag. Cannot be null.
+     */
+    public RequestContextExecutorMetrics(MeterRegistry registry, String executorName) {
+        Assert.notNull(registry, "registry cannot be null");
+        Assert.notNull(executorName, "executorName cannot be null");
+        this.queuedTimer = Timer.builder("request.context.executor.queued")
+                .description("The time from the submission of a task to its start")
+                .tag("name", executorName)
+                .register(registry);
+        this.executionTimer = Timer.builder("request.context.executor.execution")
+                .description("The time a task runs")
+                .tag("name", executorName)
+                .register(registry);
+        this.contextTimer = Timer.builder("request.context.executor.context")
+                .description("The time spent on setting up and restoring the request context")
+                .tag("name", executorName)
+                .register(registry);
+        this.withoutContextCounter = Counter.builder("request.context.executor.without.context")
+                .description("The tasks submitted without request attributes")
+                .tag("name", executorName)
+                .register(registry);
+        this.rejectedCounter = Counter.builder("request.context.executor.rejected")
+                .description("The submissions rejected by the delegate")
+                .tag("name", executorName)
+                .register(registry);
+        this.collapsedCounter = Counter.builder("request.context.executor.collapsed")
+                .description("The tasks submitted as is because they already set up a request context")
+                .tag("name", executorName)
+                .register(registry);
+        this.expiredCounter = Counter.builder("request.context.executor.expired")
+                .description("The tasks not submitted or not run because their request has passed its deadline")
+                .tag("name", executorName)
+                .register(registry);
+    }
+
+    /**
+     * Times a {@link Runnable} and the request context wrapper around it.
+     *
+     * @param delegate       the original {@link Runnable}
+     * @param contextWrapper wraps a {@link Runnable} in the request context
+     * @return the timed wrapped {@link Runnable}
+     */
+    Runnable instrument(Runnable delegate, UnaryOperator<Runnable> contextWrapper) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        TimedRunnable timed = new TimedRunnable();
+        timed.wrapped = contextWrapper.apply(() -> {
+            long started = System.nanoTime();
+            try {
+                delegate.run();
+            } finally {
+                timed.executionNanos = recordSince(this.executionTimer, started);
+            }
+        });
+        return timed;
+    }
+
+    /**
+     * Times a {@link Callable} and the request context wrapper around it.
+     *
+     * @param delegate       the original {@link Callable}
+     * @param contextWrapper wraps a {@link Callable} in the request context
+     * @param <T>            the result type of {@link Callable}
+     * @return the timed wrapped {@link Callable}
+     */
+    <T> Callable<T> instrument(Callable<T> delegate, UnaryOperator<Callable<T>> contextWrapper) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        TimedCallable<T> timed = new TimedCallable<>();
+        timed.wrapped = contextWrapper.apply(() -> {
+            long started = System.nanoTime();
+            try {
+                return delegate.call();
+            } finally {
+                timed.executionNanos = recordSince(this.executionTimer, started);
+            }
+        });
+        return timed;
+    }
+
+    void taskWithoutContext() {
+        this.withoutContextCounter.increment();
+    }
+
+    void taskRejected() {
+        this.rejectedCounter.increment();
+    }
+
+    void taskCollapsed() {
+        this.collapsedCounter.increment();
+    }
+
+    void taskExpired() {
+        this.expiredCounter.increment();
+    }
+
+    private static long recordSince(Timer timer, long started) {
+        long nanos = System.nanoTime() - started;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        return nanos;
+    }
+
+    /**
+     * Common state of a timed task. A periodic task records its queue time on the first run only.
+     */
+    private abstract class TimedTask implements RequestContextWrapper.Decorator {
+
+        private final long submittedNanos = System.nanoTime();
+
+        private boolean started;
+
+        long executionNanos;
+
+        long start() {
+            long now = System.nanoTime();
+            if (!this.started) {
+                this.started = true;
+                queuedTimer.record(now - this.submittedNanos, TimeUnit.NANOSECONDS);
+            }
+            this.executionNanos = 0L;
+            return now;
+        }
+
+        void finish(long started) {
+            long totalNanos = System.nanoTime() - started;
+            contextTimer.record(Math.max(0L, totalNanos - this.executionNanos), TimeUnit.NANOSECONDS);
+        }
+
+    }
+
+    private final class TimedRunnable extends TimedTask implements Runnable {
+
+        private Runnable wrapped;
+
+        @Override
+        public Object getDecorated() {
+            return this.wrapped;
+        }
+
+        @Override
+        public void run() {
+            long started = start();
+            try {
+                this.wrapped.run();
+            } finally {
+                finish(started);
+            }
+        }
+
+    }
+
+    private final class TimedCallable<T> extends TimedTask implements Callable<T> {
+
+        private Callable<T> wrapped;
+
+        @Override
+        public Object getDecorated() {
+            return this.wrapped;
+        }
+
+        @Override
+        public T call() throws Exception {
+            long started = start();
+            try {
+                return this.wrapped.call();
+            } finally {
+                finish(started);
+            }
+        }
+
+    }
+
+}
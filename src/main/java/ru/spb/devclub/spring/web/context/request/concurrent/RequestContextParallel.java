@@ -0,0 +1,304 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Processes the elements of a collection in parallel chunks on an {@link ExecutorService} with the
+ * {@link RequestAttributes} of the calling thread, without a wrapper per element.
+ * </p>
+ * <p>
+ * Up to {@code parallelism} workers, the calling thread being one of them, take chunks of consecutive
+ * elements until there are none left. The {@link RequestAttributes} are set up once per worker rather than
+ * once per element: by the executor itself if it is a {@link DelegatingRequestContextExecutor}, so that its
+ * deadlines, bulkhead and metrics apply, or by a {@link DelegatingRequestContextCallable} otherwise. The chunks
+ * shrink as the elements run out, each being about a {@code 2 * parallelism}-th of the remaining elements and
+ * no smaller than {@link #setMinChunkSize(int) minChunkSize}, so the first chunks are taken with little
+ * contention and the last ones keep all workers busy until the end.
+ * </p>
+ * <p>
+ * The results are merged in the order of the elements. When an element fails, no more chunks are taken,
+ * the chunks in progress stop at their next element, and the first failure is thrown once every worker has
+ * stopped. A worker the executor rejects is left to the others.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutorService#invokeAllBatched(Collection, int)
+ * @since 1.1
+ */
+public class RequestContextParallel {
+
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    private volatile int minChunkSize = 1;
+
+    /**
+     * Creates a new {@link RequestContextParallel}.
+     *
+     * @param executor    the {@link ExecutorService} to run the workers on. Cannot be null.
+     * @param parallelism the maximum number of workers, including the calling thread. Must be positive.
+     */
+    public RequestContextParallel(ExecutorService executor, int parallelism) {
+        Assert.notNull(executor, "executor cannot be null");
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates a new {@link RequestContextParallel} with as many workers as there are available processors.
+     *
+     * @param executor the {@link ExecutorService} to run the workers on. Cannot be null.
+     */
+    public RequestContextParallel(ExecutorService executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets the minimum number of elements in a chunk, except the last one. Defaults to 1.
+     * A larger value suits elements that take too little time to be worth taking one by one.
+     *
+     * @param minChunkSize the minimum number of elements in a chunk. Must be positive.
+     */
+    public void setMinChunkSize(int minChunkSize) {
+        Assert.isTrue(minChunkSize > 0, "minChunkSize must be positive");
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Applies a function to each element in parallel.
+     *
+     * @param elements the elements. Cannot be null.
+     * @param mapper   the function to apply. Cannot be null.
+     * @param <T>      the type of elements
+     * @param <R>      the type of results
+     * @return the results in the order of the elements
+     * @throws ExecutionException   if the function has failed for an element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public <T, R> List<R> map(Collection<? extends T> elements, Function<? super T, ? extends R> mapper)
+            throws ExecutionException, InterruptedException {
+        Assert.notNull(elements, "elements cannot be null");
+        Assert.notNull(mapper, "mapper cannot be null");
+        List<? extends T> list = toList(elements);
+        Object[] results = new Object[list.size()];
+        run(list, (element, index) -> results[index] = mapper.apply(element));
+        @SuppressWarnings("unchecked")
+        List<R> merged = (List<R>) Arrays.asList(results);
+        return merged;
+    }
+
+    /**
+     * Applies a function to each element of a {@link Stream} in parallel.
+     *
+     * @param elements the elements, consumed before processing starts. Cannot be null.
+     * @param mapper   the function to apply. Cannot be null.
+     * @param <T>      the type of elements
+     * @param <R>      the type of results
+     * @return the results in the order of the elements
+     * @throws ExecutionException   if the function has failed for an element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public <T, R> List<R> map(Stream<? extends T> elements, Function<? super T, ? extends R> mapper)
+            throws ExecutionException, InterruptedException {
+        Assert.notNull(elements, "elements cannot be null");
+        return map(elements.collect(Collectors.toList()), mapper);
+    }
+
+    /**
+     * Performs an action for each element in parallel.
+     *
+     * @param elements the elements. Cannot be null.
+     * @param action   the action to perform. Cannot be null.
+     * @param <T>      the type of elements
+     * @throws ExecutionException   if the action has failed for an element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public <T> void forEach(Collection<? extends T> elements, Consumer<? super T> action)
+            throws ExecutionException, InterruptedException {
+        Assert.notNull(elements, "elements cannot be null");
+        Assert.notNull(action, "action cannot be null");
+        run(toList(elements), (element, index) -> action.accept(element));
+    }
+
+    private <T> void run(List<? extends T> elements, ElementTask<T> task)
+            throws ExecutionException, InterruptedException {
+        int size = elements.size();
+        if (size == 0) {
+            return;
+        }
+        int minChunkSize = this.minChunkSize;
+        Chunks<T> chunks = new Chunks<>(elements, task, minChunkSize, this.parallelism);
+        int workers = (int) Math.min(this.parallelism, (size + (long) minChunkSize - 1) / minChunkSize);
+        List<Future<?>> futures = new ArrayList<>(workers - 1);
+        boolean done = false;
+        try {
+            for (int i = 1; i < workers; i++) {
+                try {
+                    futures.add(submit(chunks));
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+            chunks.process();
+            chunks.awaitWorkers();
+            done = true;
+        } finally {
+            if (!done) {
+                chunks.cancel();
+            }
+            for (Future<?> future : futures) {
+                future.cancel(!done);
+            }
+        }
+        Throwable failure = chunks.failure.get();
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+    }
+
+    private static <T> List<? extends T> toList(Collection<? extends T> elements) {
+        return elements instanceof List && elements instanceof RandomAccess
+                ? (List<? extends T>) elements : new ArrayList<>(elements);
+    }
+
+    private Future<?> submit(Runnable worker) {
+        if (this.executor instanceof DelegatingRequestContextExecutor) {
+            return this.executor.submit(worker);
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return this.executor.submit(worker);
+        }
+        Callable<Object> callable = new DelegatingRequestContextCallable<>(() -> {
+            worker.run();
+            return null;
+        }, requestAttributes);
+        return this.executor.submit(callable);
+    }
+
+    @FunctionalInterface
+    private interface ElementTask<T> {
+
+        void run(T element, int index);
+
+    }
+
+    /**
+     * The chunks of elements that the workers take until there are none left or an element has failed.
+     */
+    private static final class Chunks<T> implements Runnable {
+
+        private final List<? extends T> elements;
+
+        private final ElementTask<T> task;
+
+        private final int minChunkSize;
+
+        private final int divisor;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        /**
+         * The number of workers running on the threads of the executor.
+         */
+        private int workers;
+
+        private boolean closed;
+
+        private Chunks(List<? extends T> elements, ElementTask<T> task, int minChunkSize, int parallelism) {
+            this.elements = elements;
+            this.task = task;
+            this.minChunkSize = minChunkSize;
+            this.divisor = parallelism * 2;
+        }
+
+        /**
+         * Runs a worker on the thread of the executor, unless the calling thread has stopped waiting for
+         * the workers, for example because all chunks were taken before the worker started.
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.workers++;
+            }
+            try {
+                process();
+            } finally {
+                synchronized (this) {
+                    if (--this.workers == 0) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        private void process() {
+            int size = this.elements.size();
+            int start;
+            while (!this.cancelled && (start = this.next.get()) < size) {
+                int chunkSize = Math.max(this.minChunkSize, (size - start) / this.divisor);
+                int end = (int) Math.min(size, (long) start + chunkSize);
+                if (!this.next.compareAndSet(start, end)) {
+                    continue;
+                }
+                for (int i = start; i < end && !this.cancelled; i++) {
+                    try {
+                        this.task.run(this.elements.get(i), i);
+                    } catch (Throwable e) {
+                        if (this.failure.compareAndSet(null, e)) {
+                            cancel();
+                        }
+                        if (e instanceof Error) {
+                            throw (Error) e;
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Prevents the workers that have not started from running and waits for the others to stop.
+         */
+        private synchronized void awaitWorkers() throws InterruptedException {
+            this.closed = true;
+            while (this.workers > 0) {
+                wait();
+            }
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+        }
+
+    }
+
+}
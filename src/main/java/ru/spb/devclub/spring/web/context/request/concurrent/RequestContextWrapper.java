@@ -0,0 +1,48 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * An internal marker of a task that already sets up a request context when it runs,
+ * so a delegating executor can submit it as is instead of wrapping it again.
+ *
+ * @since 1.1
+ */
+interface RequestContextWrapper {
+
+    /**
+     * Whether a task sets up the {@link RequestContextHolder} when it runs, rather than only the
+     * {@link ScopedRequestContext} as the wrappers of {@link PropagationMode#SCOPED_VALUE} do.
+     *
+     * @param task the task
+     * @return {@code true} if the task is a {@link RequestContextWrapper} that sets up the {@link RequestContextHolder}
+     */
+    static boolean bindsHolder(Object task) {
+        while (task instanceof Decorator) {
+            task = ((Decorator) task).getDecorated();
+        }
+        if (task instanceof ScopedRequestContextRunnable) {
+            return ((ScopedRequestContextRunnable) task).isExposedToHolder();
+        }
+        if (task instanceof ScopedRequestContextCallable) {
+            return ((ScopedRequestContextCallable<?>) task).isExposedToHolder();
+        }
+        return task instanceof RequestContextWrapper;
+    }
+
+    /**
+     * An internal task that decorates a task which sets up the request context, and sets up
+     * only what that task does.
+     */
+    interface Decorator extends RequestContextWrapper {
+
+        /**
+         * Returns the decorated task.
+         *
+         * @return the decorated task
+         */
+        Object getDecorated();
+
+    }
+
+}
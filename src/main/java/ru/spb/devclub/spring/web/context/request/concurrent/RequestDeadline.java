@@ -0,0 +1,118 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The point in time after which the client of a request is not waiting for its result anymore.
+ * </p>
+ * <p>
+ * A {@link RequestDeadline} is resolved once per request by a {@link RequestDeadlineResolver} and kept
+ * as a request attribute, so the tasks of the request, and the tasks they submit in turn, share it and
+ * each of them sees the remaining budget rather than a fresh one.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setDeadlineResolver(RequestDeadlineResolver)
+ * @since 1.1
+ */
+public final class RequestDeadline {
+
+    private static final String ATTRIBUTE_NAME = RequestDeadline.class.getName();
+
+    /**
+     * The deadline in terms of {@link System#nanoTime()}.
+     */
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a {@link RequestDeadline} the specified time from now.
+     *
+     * @param timeout the time from now, zero or negative for a deadline that has passed
+     * @param unit    the {@link TimeUnit} of {@code timeout}. Cannot be null.
+     * @return the {@link RequestDeadline}
+     */
+    public static RequestDeadline after(long timeout, TimeUnit unit) {
+        Assert.notNull(unit, "unit cannot be null");
+        return new RequestDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns the {@link RequestDeadline} of the specified {@link RequestAttributes}.
+     *
+     * @param attributes the {@link RequestAttributes}. Cannot be null.
+     * @return the {@link RequestDeadline} or null if none has been resolved
+     */
+    public static RequestDeadline of(RequestAttributes attributes) {
+        Assert.notNull(attributes, "attributes cannot be null");
+        Object deadline = attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        return deadline instanceof RequestDeadline ? (RequestDeadline) deadline : null;
+    }
+
+    /**
+     * Returns the {@link RequestDeadline} of the current {@link RequestAttributes} from the
+     * {@link RequestContextHolder}, for example to bound a remote call made by a task.
+     *
+     * @return the {@link RequestDeadline} or null if there is no {@link RequestAttributes} or no deadline
+     */
+    public static RequestDeadline current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null ? of(attributes) : null;
+    }
+
+    /**
+     * Returns the {@link RequestDeadline} of the specified {@link RequestAttributes}, resolving
+     * and keeping it on the first call. A deadline that cannot be kept, because the request has ended or the
+     * {@link RequestAttributes} are immutable, such as {@link SnapshotRequestAttributes}, is resolved on each call.
+     *
+     * @param attributes the {@link RequestAttributes}. Cannot be null.
+     * @param resolver   the {@link RequestDeadlineResolver}. Cannot be null.
+     * @return the {@link RequestDeadline} or null if the request has none
+     */
+    static RequestDeadline resolve(RequestAttributes attributes, RequestDeadlineResolver resolver) {
+        RequestDeadline deadline = of(attributes);
+        if (deadline == null) {
+            deadline = resolver.resolve(attributes);
+            if (deadline != null) {
+                try {
+                    attributes.setAttribute(ATTRIBUTE_NAME, deadline, RequestAttributes.SCOPE_REQUEST);
+                } catch (IllegalStateException | UnsupportedOperationException e) {
+                    // the request has ended or the request attributes are immutable
+                }
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @param unit the {@link TimeUnit} of the result. Cannot be null.
+     * @return the time left, zero if the deadline has passed
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(this.deadlineNanos - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns whether the deadline has passed.
+     *
+     * @return {@code true} if the deadline has passed
+     */
+    public boolean isExpired() {
+        return this.deadlineNanos - System.nanoTime() <= 0L;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestDeadline{remaining=" + remaining(TimeUnit.MILLISECONDS) + "ms}";
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown instead of submitting or running a task whose request has passed its {@link RequestDeadline}.
+ *
+ * @see DelegatingRequestContextExecutor#setDeadlineResolver(RequestDeadlineResolver)
+ * @since 1.1
+ */
+public class RequestDeadlineExceededException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@link RequestDeadlineExceededException}.
+     *
+     * @param deadline the {@link RequestDeadline} that has passed
+     */
+    public RequestDeadlineExceededException(RequestDeadline deadline) {
+        super("Request deadline exceeded: " + deadline);
+    }
+
+}
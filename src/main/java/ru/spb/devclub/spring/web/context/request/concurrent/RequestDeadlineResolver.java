@@ -0,0 +1,113 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A strategy for resolving the {@link RequestDeadline} of a request. It is applied once per request,
+ * when its first task is submitted, and a budget it reads is counted from that moment.
+ *
+ * @see DelegatingRequestContextExecutor#setDeadlineResolver(RequestDeadlineResolver)
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface RequestDeadlineResolver {
+
+    /**
+     * Resolves the {@link RequestDeadline} of a request.
+     *
+     * @param attributes the {@link RequestAttributes} of the request. Never null.
+     * @return the {@link RequestDeadline} or null if the request has none
+     */
+    RequestDeadline resolve(RequestAttributes attributes);
+
+    /**
+     * Returns a {@link RequestDeadlineResolver} that falls back to the specified one when this one
+     * resolves no {@link RequestDeadline}.
+     *
+     * @param other the {@link RequestDeadlineResolver} to fall back to. Cannot be null.
+     * @return the composed {@link RequestDeadlineResolver}
+     */
+    default RequestDeadlineResolver orElse(RequestDeadlineResolver other) {
+        Assert.notNull(other, "other cannot be null");
+        return attributes -> {
+            RequestDeadline deadline = resolve(attributes);
+            return deadline != null ? deadline : other.resolve(attributes);
+        };
+    }
+
+    /**
+     * Returns a {@link RequestDeadlineResolver} that reads the budget of a request in milliseconds
+     * from a header, for example one set by an upstream proxy or client.
+     *
+     * @param headerName the name of the header. Cannot be null.
+     * @return the {@link RequestDeadlineResolver}
+     */
+    static RequestDeadlineResolver header(String headerName) {
+        Assert.notNull(headerName, "headerName cannot be null");
+        return attributes -> {
+            if (!(attributes instanceof ServletRequestAttributes)) {
+                return null;
+            }
+            String value = ((ServletRequestAttributes) attributes).getRequest().getHeader(headerName);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return RequestDeadline.after(Long.parseLong(value.trim()), TimeUnit.MILLISECONDS);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link RequestDeadlineResolver} that reads a request attribute, which holds either
+     * a {@link RequestDeadline}, a {@link Duration} or a {@link Number} of milliseconds of budget.
+     *
+     * @param attributeName the name of the request attribute. Cannot be null.
+     * @return the {@link RequestDeadlineResolver}
+     */
+    static RequestDeadlineResolver attribute(String attributeName) {
+        Assert.notNull(attributeName, "attributeName cannot be null");
+        return attributes -> {
+            Object value = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+            if (value instanceof RequestDeadline) {
+                return (RequestDeadline) value;
+            }
+            if (value instanceof Duration) {
+                return RequestDeadline.after(((Duration) value).toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (value instanceof Number) {
+                return RequestDeadline.after(((Number) value).longValue(), TimeUnit.MILLISECONDS);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Returns a {@link RequestDeadlineResolver} that uses the timeout of the servlet async processing
+     * of a request that has started it.
+     *
+     * @return the {@link RequestDeadlineResolver}
+     */
+    static RequestDeadlineResolver asyncTimeout() {
+        return attributes -> {
+            if (!(attributes instanceof ServletRequestAttributes)) {
+                return null;
+            }
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            if (!request.isAsyncStarted()) {
+                return null;
+            }
+            long timeout = request.getAsyncContext().getTimeout();
+            return timeout > 0 ? RequestDeadline.after(timeout, TimeUnit.MILLISECONDS) : null;
+        };
+    }
+
+}
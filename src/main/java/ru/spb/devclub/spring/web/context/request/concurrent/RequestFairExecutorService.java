@@ -0,0 +1,253 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * An internal {@link ExecutorService} that runs at most {@code parallelism} tasks on a worker
+ * {@link ExecutorService} and queues the others by request, taking the next task from each request
+ * in turn instead of in the order they were submitted. A request that submits a few tasks does not
+ * wait behind a request that has submitted hundreds.
+ * </p>
+ * <p>
+ * A task belongs to the request of the {@link RequestAttributes} bound to the submitting thread, which
+ * are the ones a delegating executor captures, or to one shared queue if there is none. The queue of
+ * a request is dropped once it is empty. A queued task that the worker {@link ExecutorService} rejects
+ * runs on the thread of the task that has completed.
+ * </p>
+ * <p>
+ * After {@link #shutdown()} the queued tasks still run and the worker {@link ExecutorService} is shut down
+ * once they have completed. {@link #shutdownNow()} returns the queued tasks.
+ * </p>
+ *
+ * @see FairDelegatingRequestContextExecutorService
+ * @since 1.1
+ */
+final class RequestFairExecutorService extends AbstractExecutorService {
+
+    private static final Object NO_REQUEST = new Object();
+
+    private final ExecutorService workers;
+
+    private final int parallelism;
+
+    private final Map<Object, Lane> lanes = new HashMap<>();
+
+    /**
+     * The lanes with queued tasks, in the order they take turns.
+     */
+    private final Queue<Lane> ready = new ArrayDeque<>();
+
+    private int running;
+
+    private int queued;
+
+    private volatile boolean shutdown;
+
+    RequestFairExecutorService(ExecutorService workers, int parallelism) {
+        Assert.notNull(workers, "workers cannot be null");
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+        this.workers = workers;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Assert.notNull(command, "command cannot be null");
+        Object key = key(RequestContextHolder.getRequestAttributes());
+        synchronized (this) {
+            if (this.shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            if (this.running >= this.parallelism) {
+                Lane lane = this.lanes.computeIfAbsent(key, Lane::new);
+                if (lane.tasks.isEmpty()) {
+                    this.ready.add(lane);
+                }
+                lane.tasks.add(command);
+                this.queued++;
+                return;
+            }
+            this.running++;
+        }
+        try {
+            this.workers.execute(new Dispatched(command));
+        } catch (RejectedExecutionException e) {
+            complete();
+            throw e;
+        }
+    }
+
+    synchronized int getQueuedCount() {
+        return this.queued;
+    }
+
+    @Override
+    public void shutdown() {
+        boolean idle;
+        synchronized (this) {
+            this.shutdown = true;
+            idle = this.running == 0;
+            notifyAll();
+        }
+        if (idle) {
+            this.workers.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<>();
+        synchronized (this) {
+            this.shutdown = true;
+            for (Lane lane : this.ready) {
+                tasks.addAll(lane.tasks);
+            }
+            this.ready.clear();
+            this.lanes.clear();
+            this.queued = 0;
+        }
+        int drained = 0;
+        for (Runnable task : this.workers.shutdownNow()) {
+            if (task instanceof Dispatched) {
+                tasks.add(((Dispatched) task).task);
+                drained++;
+            } else {
+                tasks.add(task);
+            }
+        }
+        if (drained > 0) {
+            synchronized (this) {
+                // the drained tasks never run, so they never free their slots
+                this.running -= drained;
+                notifyAll();
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown && this.workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!this.shutdown || this.running > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return this.workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Hands the slot of a completed task over to the next lane in turn, or frees it.
+     */
+    private void complete() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                Lane lane = this.ready.poll();
+                if (lane == null) {
+                    if (--this.running > 0 || !this.shutdown) {
+                        return;
+                    }
+                    notifyAll();
+                    break;
+                }
+                next = lane.tasks.poll();
+                this.queued--;
+                if (lane.tasks.isEmpty()) {
+                    this.lanes.remove(lane.key);
+                } else {
+                    this.ready.add(lane);
+                }
+            }
+            try {
+                this.workers.execute(new Dispatched(next));
+                return;
+            } catch (RejectedExecutionException e) {
+                runHere(next);
+            }
+        }
+        this.workers.shutdown();
+    }
+
+    private static void runHere(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private static Object key(RequestAttributes attributes) {
+        attributes = ConcurrentRequestAttributes.unwrap(attributes);
+        return attributes != null ? attributes : NO_REQUEST;
+    }
+
+    /**
+     * The queued tasks of one request.
+     */
+    private static final class Lane {
+
+        private final Object key;
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        private Lane(Object key) {
+            this.key = key;
+        }
+
+    }
+
+    private final class Dispatched implements Runnable {
+
+        private final Runnable task;
+
+        private Dispatched(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.task.run();
+            } finally {
+                complete();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.task.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.Callable;
+
+/**
+ * An internal {@link Callable} that holds a reference on {@link RetainableRequestAttributes}
+ * until its first call completes.
+ *
+ * @param <V> the result type of the {@link Callable}
+ * @since 1.1
+ */
+final class RequestRetainingCallable<V> extends RequestRetainingTask implements Callable<V> {
+
+    private final Callable<V> delegate;
+
+    RequestRetainingCallable(Callable<V> delegate, RetainableRequestAttributes requestAttributes) {
+        super(requestAttributes);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public V call() throws Exception {
+        if (!start()) {
+            return this.delegate.call();
+        }
+        try {
+            return this.delegate.call();
+        } finally {
+            finish();
+        }
+    }
+
+    @Override
+    Callable<V> getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
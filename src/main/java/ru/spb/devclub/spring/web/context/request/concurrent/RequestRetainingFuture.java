@@ -0,0 +1,88 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An internal {@link Future} of a {@link RequestRetainingTask} that releases the reference of the task
+ * when it is cancelled before it starts, since the delegate will then never run it.
+ *
+ * @param <V> the result type of the task
+ * @since 1.1
+ */
+class RequestRetainingFuture<V> implements Future<V> {
+
+    private final Future<V> delegate;
+
+    private final Object task;
+
+    RequestRetainingFuture(Future<V> delegate, Object task) {
+        this.delegate = delegate;
+        this.task = task;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (this.delegate.cancel(mayInterruptIfRunning)) {
+            RequestRetainingTask.abandon(this.task);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.delegate.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.delegate.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        return this.delegate.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return this.delegate.get(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+    /**
+     * A {@link RequestRetainingFuture} of a scheduled task.
+     *
+     * @param <V> the result type of the task
+     */
+    static final class Scheduled<V> extends RequestRetainingFuture<V> implements ScheduledFuture<V> {
+
+        private final ScheduledFuture<V> delegate;
+
+        Scheduled(ScheduledFuture<V> delegate, Object task) {
+            super(delegate, task);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return this.delegate.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return this.delegate.compareTo(other instanceof Scheduled ? ((Scheduled<?>) other).delegate : other);
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+/**
+ * An internal {@link Runnable} that holds a reference on {@link RetainableRequestAttributes}
+ * until its first run completes.
+ *
+ * @since 1.1
+ */
+final class RequestRetainingRunnable extends RequestRetainingTask implements Runnable {
+
+    private final Runnable delegate;
+
+    RequestRetainingRunnable(Runnable delegate, RetainableRequestAttributes requestAttributes) {
+        super(requestAttributes);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void run() {
+        if (!start()) {
+            this.delegate.run();
+            return;
+        }
+        try {
+            this.delegate.run();
+        } finally {
+            finish();
+        }
+    }
+
+    @Override
+    Runnable getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
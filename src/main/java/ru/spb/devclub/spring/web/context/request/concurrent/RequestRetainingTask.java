@@ -0,0 +1,82 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An internal base of a task that holds a reference on {@link RetainableRequestAttributes}
+ * from its submission until its first run completes, or until it is known never to run.
+ *
+ * @since 1.1
+ */
+abstract class RequestRetainingTask implements RequestContextWrapper.Decorator {
+
+    private static final int NEW = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int RELEASED = 2;
+
+    private static final int ABANDONED = 3;
+
+    private final RetainableRequestAttributes requestAttributes;
+
+    private final AtomicInteger state = new AtomicInteger(NEW);
+
+    RequestRetainingTask(RetainableRequestAttributes requestAttributes) {
+        this.requestAttributes = requestAttributes;
+    }
+
+    /**
+     * Starts a run.
+     *
+     * @return {@code true} if it is the first run, which has to {@link #finish()}
+     * @throws CancellationException if the task has been abandoned
+     */
+    final boolean start() {
+        if (this.state.compareAndSet(NEW, RUNNING)) {
+            return true;
+        }
+        if (this.state.get() == ABANDONED) {
+            throw new CancellationException("Task has been abandoned");
+        }
+        return false;
+    }
+
+    final void finish() {
+        this.state.set(RELEASED);
+        this.requestAttributes.release();
+    }
+
+    /**
+     * Releases the reference of a task that has not started and will never run,
+     * along with the references of the tasks it wraps.
+     */
+    final void abandon() {
+        if (this.state.compareAndSet(NEW, ABANDONED)) {
+            this.requestAttributes.release();
+            abandon(getDelegate());
+        }
+    }
+
+    abstract Object getDelegate();
+
+    @Override
+    public final Object getDecorated() {
+        return getDelegate();
+    }
+
+    static void abandon(Object task) {
+        if (task instanceof RequestRetainingTask) {
+            ((RequestRetainingTask) task).abandon();
+        }
+    }
+
+    static void abandonAll(Collection<?> tasks) {
+        if (tasks != null) {
+            tasks.forEach(RequestRetainingTask::abandon);
+        }
+    }
+
+}
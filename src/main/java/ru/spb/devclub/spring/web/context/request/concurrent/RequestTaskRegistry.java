@@ -0,0 +1,194 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * An internal registry of the {@link Future}s of the tasks submitted under a request, kept as a request
+ * attribute, which cancels those still outstanding when the request ends.
+ * </p>
+ * <p>
+ * The registry cancels the tasks from a request destruction callback, or, if the request has started
+ * servlet async processing by then, when the async processing completes, times out or fails, for example
+ * because the client has disconnected. Completed {@link Future}s are purged as more are added.
+ * </p>
+ *
+ * @see DelegatingRequestContextExecutor#setCancelOnRequestCompletion(boolean)
+ * @since 1.1
+ */
+final class RequestTaskRegistry implements AsyncListener {
+
+    private static final String ATTRIBUTE_NAME = RequestTaskRegistry.class.getName();
+
+    private static final int MIN_PURGE_THRESHOLD = 16;
+
+    private final HttpServletRequest request;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private int purgeThreshold = MIN_PURGE_THRESHOLD;
+
+    private boolean closed;
+
+    private RequestTaskRegistry(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Returns the {@link RequestTaskRegistry} of the request, creating it on the first call.
+     *
+     * @param attributes the {@link RequestAttributes} of the request
+     * @return the {@link RequestTaskRegistry} of the request, a closed one that cancels each added
+     * {@link Future} right away if the request has ended, or null if the {@link RequestAttributes} cannot
+     * hold it, such as {@link SnapshotRequestAttributes}
+     */
+    static RequestTaskRegistry of(RequestAttributes attributes) {
+        try {
+            return getOrCreate(ConcurrentRequestAttributes.unwrap(attributes));
+        } catch (IllegalStateException e) {
+            // the request attributes of a completed request cannot be read or written
+            RequestTaskRegistry closed = new RequestTaskRegistry(null);
+            closed.closed = true;
+            return closed;
+        } catch (UnsupportedOperationException e) {
+            // immutable request attributes, which are not bound to the live request
+            return null;
+        }
+    }
+
+    private static RequestTaskRegistry getOrCreate(RequestAttributes attributes) {
+        Object existing = attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (existing instanceof RequestTaskRegistry) {
+            return (RequestTaskRegistry) existing;
+        }
+        synchronized (attributes) {
+            existing = attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+            if (existing instanceof RequestTaskRegistry) {
+                return (RequestTaskRegistry) existing;
+            }
+            HttpServletRequest request = attributes instanceof ServletRequestAttributes
+                    ? ((ServletRequestAttributes) attributes).getRequest()
+                    : null;
+            RequestTaskRegistry registry = new RequestTaskRegistry(request);
+            attributes.setAttribute(ATTRIBUTE_NAME, registry, RequestAttributes.SCOPE_REQUEST);
+            if (request != null && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(registry);
+            } else {
+                attributes.registerDestructionCallback(ATTRIBUTE_NAME, registry::onRequestCompleted,
+                        RequestAttributes.SCOPE_REQUEST);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Adds the {@link Future} of a task, or cancels it right away if the request has ended.
+     *
+     * @param future                the {@link Future} of the task
+     * @param task                  the wrapped task, which releases the request it holds if it is cancelled
+     *                              before it starts, or null
+     * @param mayInterruptIfRunning whether to interrupt the task if it is running when it is cancelled
+     */
+    void add(Future<?> future, Object task, boolean mayInterruptIfRunning) {
+        Entry entry = new Entry(future, task, mayInterruptIfRunning);
+        synchronized (this) {
+            if (!this.closed) {
+                if (this.entries.size() >= this.purgeThreshold) {
+                    purge();
+                }
+                this.entries.add(entry);
+                return;
+            }
+        }
+        entry.cancel();
+    }
+
+    synchronized int getOutstandingCount() {
+        purge();
+        return this.entries.size();
+    }
+
+    /**
+     * Cancels the outstanding tasks, along with the tasks added later.
+     */
+    void cancelAll() {
+        List<Entry> entries;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            entries = new ArrayList<>(this.entries);
+            this.entries.clear();
+        }
+        entries.forEach(Entry::cancel);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        cancelAll();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        cancelAll();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        cancelAll();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        event.getAsyncContext().addListener(this);
+    }
+
+    /**
+     * Cancels the outstanding tasks when the request thread completes, or defers it until
+     * the async processing the request has started ends.
+     */
+    private void onRequestCompleted() {
+        if (this.request != null && this.request.isAsyncStarted()) {
+            this.request.getAsyncContext().addListener(this);
+        } else {
+            cancelAll();
+        }
+    }
+
+    private void purge() {
+        this.entries.removeIf(entry -> entry.future.isDone());
+        this.purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, this.entries.size() * 2);
+    }
+
+    private static final class Entry {
+
+        private final Future<?> future;
+
+        private final Object task;
+
+        private final boolean mayInterruptIfRunning;
+
+        private Entry(Future<?> future, Object task, boolean mayInterruptIfRunning) {
+            this.future = future;
+            this.task = task;
+            this.mayInterruptIfRunning = mayInterruptIfRunning;
+        }
+
+        void cancel() {
+            if (this.future.cancel(this.mayInterruptIfRunning)) {
+                RequestRetainingTask.abandon(this.task);
+            }
+        }
+
+    }
+
+}
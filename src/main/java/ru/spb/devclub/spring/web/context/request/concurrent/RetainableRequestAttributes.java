@@ -0,0 +1,27 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+/**
+ * A {@link RequestAttributes} that the tasks which run with it hold a reference on,
+ * from their submission until they complete.
+ *
+ * @see ReferenceCountedRequestAttributes
+ * @see ConcurrentRequestAttributes
+ * @since 1.1
+ */
+public interface RetainableRequestAttributes extends RequestAttributes {
+
+    /**
+     * Adds a reference.
+     *
+     * @return {@code true} if the reference has been added and has to be {@link #release() released}
+     */
+    boolean retain();
+
+    /**
+     * Releases a reference.
+     */
+    void release();
+
+}
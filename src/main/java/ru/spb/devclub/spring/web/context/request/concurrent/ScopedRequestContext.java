@@ -0,0 +1,89 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * A fast accessor of the {@link RequestAttributes} bound by {@link ScopedRequestContextRunnable}
+ * and {@link ScopedRequestContextCallable}.
+ * </p>
+ * <p>
+ * On Java 25 or later the {@link RequestAttributes} are bound to a {@code java.lang.ScopedValue}
+ * for the duration of the task. This is the base version of a multi-release class for earlier
+ * runtimes, which falls back to a single non-inheritable {@link ThreadLocal}, in addition to the
+ * {@link ThreadLocal}s of the {@link RequestContextHolder} if it is bound too.
+ * </p>
+ *
+ * @see PropagationMode
+ * @since 1.1
+ */
+public final class ScopedRequestContext {
+
+    private static final ThreadLocal<RequestAttributes> requestAttributesHolder =
+            new NamedThreadLocal<>("Scoped request attributes");
+
+    private ScopedRequestContext() {
+    }
+
+    /**
+     * Returns the {@link RequestAttributes} bound to the current task or, if there are none,
+     * the {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @return the {@link RequestAttributes} or null
+     */
+    public static RequestAttributes getRequestAttributes() {
+        RequestAttributes attributes = requestAttributesHolder.get();
+        return (attributes != null) ? attributes : RequestContextHolder.getRequestAttributes();
+    }
+
+    /**
+     * Runs the {@link Runnable} with the {@link RequestAttributes} bound.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to bind. Cannot be null.
+     * @param task              the {@link Runnable} to run. Cannot be null.
+     */
+    public static void run(RequestAttributes requestAttributes, Runnable task) {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        RequestAttributes original = requestAttributesHolder.get();
+        requestAttributesHolder.set(requestAttributes);
+        try {
+            task.run();
+        } finally {
+            restore(original);
+        }
+    }
+
+    /**
+     * Calls the {@link Callable} with the {@link RequestAttributes} bound.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to bind. Cannot be null.
+     * @param task              the {@link Callable} to call. Cannot be null.
+     * @param <V>               the result type of {@link Callable}
+     * @return the result of the {@link Callable}
+     * @throws Exception if the {@link Callable} throws it
+     */
+    public static <V> V call(RequestAttributes requestAttributes, Callable<V> task) throws Exception {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        RequestAttributes original = requestAttributesHolder.get();
+        requestAttributesHolder.set(requestAttributes);
+        try {
+            return task.call();
+        } finally {
+            restore(original);
+        }
+    }
+
+    private static void restore(RequestAttributes original) {
+        if (original == null) {
+            requestAttributesHolder.remove();
+        } else {
+            requestAttributesHolder.set(original);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * Wraps a delegate {@link Callable} with logic for binding a {@link RequestAttributes}
+ * to the {@link ScopedRequestContext} while the delegate {@link Callable} is called.
+ * </p>
+ * <p>
+ * If {@code exposeToHolder} is set, the {@link RequestAttributes} are also set on the
+ * {@link RequestContextHolder} with {@code inheritable=false} and the previous one is restored
+ * after the {@link #call()} method is invoked.
+ * </p>
+ *
+ * @see PropagationMode
+ * @since 1.1
+ */
+public final class ScopedRequestContextCallable<V> implements Callable<V>, RequestContextWrapper {
+
+    private final Callable<V> delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link Callable} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * Whether to set the {@link RequestAttributes} on the {@link RequestContextHolder} too.
+     */
+    private final boolean exposeToHolder;
+
+    /**
+     * Creates a new {@link ScopedRequestContextCallable}.
+     *
+     * @param delegate          the delegate {@link Callable} to call with the specified
+     *                          {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Callable}. Cannot be null.
+     * @param exposeToHolder    whether to set the {@link RequestAttributes} on the
+     *                          {@link RequestContextHolder} too
+     */
+    public ScopedRequestContextCallable(Callable<V> delegate, RequestAttributes requestAttributes, boolean exposeToHolder) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.exposeToHolder = exposeToHolder;
+    }
+
+    @Override
+    public V call() throws Exception {
+        RequestAffinityThread.enterUnbound();
+        if (!this.exposeToHolder) {
+            return ScopedRequestContext.call(this.delegateRequestAttributes, this.delegate);
+        }
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes);
+            return ScopedRequestContext.call(this.delegateRequestAttributes, this.delegate);
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the {@link RequestAttributes} are set on the {@link RequestContextHolder} too.
+     *
+     * @return the {@code exposeToHolder} flag
+     */
+    boolean isExposedToHolder() {
+        return this.exposeToHolder;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
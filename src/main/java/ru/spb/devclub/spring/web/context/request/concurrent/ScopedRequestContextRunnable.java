@@ -0,0 +1,87 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * <p>
+ * Wraps a delegate {@link Runnable} with logic for binding a {@link RequestAttributes}
+ * to the {@link ScopedRequestContext} while the delegate {@link Runnable} runs.
+ * </p>
+ * <p>
+ * If {@code exposeToHolder} is set, the {@link RequestAttributes} are also set on the
+ * {@link RequestContextHolder} with {@code inheritable=false} and the previous one is restored
+ * after the {@link #run()} method is invoked.
+ * </p>
+ *
+ * @see PropagationMode
+ * @since 1.1
+ */
+public final class ScopedRequestContextRunnable implements Runnable, RequestContextWrapper {
+
+    private final Runnable delegate;
+
+    /**
+     * The {@link RequestAttributes} that the delegate {@link Runnable} will be ran as.
+     */
+    private final RequestAttributes delegateRequestAttributes;
+
+    /**
+     * Whether to set the {@link RequestAttributes} on the {@link RequestContextHolder} too.
+     */
+    private final boolean exposeToHolder;
+
+    /**
+     * Creates a new {@link ScopedRequestContextRunnable}.
+     *
+     * @param delegate          the delegate {@link Runnable} to run with the specified
+     *                          {@link RequestAttributes}. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to establish for the delegate
+     *                          {@link Runnable}. Cannot be null.
+     * @param exposeToHolder    whether to set the {@link RequestAttributes} on the
+     *                          {@link RequestContextHolder} too
+     */
+    public ScopedRequestContextRunnable(Runnable delegate, RequestAttributes requestAttributes, boolean exposeToHolder) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        this.delegate = delegate;
+        this.delegateRequestAttributes = requestAttributes;
+        this.exposeToHolder = exposeToHolder;
+    }
+
+    @Override
+    public void run() {
+        RequestAffinityThread.enterUnbound();
+        if (!this.exposeToHolder) {
+            ScopedRequestContext.run(this.delegateRequestAttributes, this.delegate);
+            return;
+        }
+        RequestAttributes originalRequestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            RequestContextHolder.setRequestAttributes(this.delegateRequestAttributes);
+            ScopedRequestContext.run(this.delegateRequestAttributes, this.delegate);
+        } finally {
+            if (originalRequestAttributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes(originalRequestAttributes);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the {@link RequestAttributes} are set on the {@link RequestContextHolder} too.
+     *
+     * @return the {@code exposeToHolder} flag
+     */
+    boolean isExposedToHolder() {
+        return this.exposeToHolder;
+    }
+
+    @Override
+    public String toString() {
+        return this.delegate.toString();
+    }
+
+}
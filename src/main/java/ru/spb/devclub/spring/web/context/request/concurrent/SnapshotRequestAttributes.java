@@ -0,0 +1,170 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * An immutable {@link RequestAttributes} that holds a copy of selected headers, parameters
+ * and request attributes of a request, so a queued task does not pin the live request.
+ * </p>
+ * <p>
+ * Only {@link RequestAttributes#SCOPE_REQUEST} attributes are available; there is no session,
+ * so session scoped lookups return null. Any modification throws an
+ * {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @see SnapshotRequestAttributesCaptureStrategy
+ * @since 1.1
+ */
+public final class SnapshotRequestAttributes implements RequestAttributes {
+
+    private final Map<String, Object> attributes;
+
+    private final Map<String, List<String>> headers;
+
+    private final Map<String, String[]> parameters;
+
+    private final String sessionId;
+
+    /**
+     * Creates a new {@link SnapshotRequestAttributes}.
+     *
+     * @param attributes the request attributes. Cannot be null.
+     * @param headers    the header values by header name. Cannot be null.
+     * @param parameters the parameter values by parameter name. Cannot be null.
+     * @param sessionId  the id of the session of the request or null if there is none
+     */
+    public SnapshotRequestAttributes(
+            Map<String, Object> attributes,
+            Map<String, List<String>> headers,
+            Map<String, String[]> parameters,
+            String sessionId) {
+        Assert.notNull(attributes, "attributes cannot be null");
+        Assert.notNull(headers, "headers cannot be null");
+        Assert.notNull(parameters, "parameters cannot be null");
+        this.attributes = Map.copyOf(attributes);
+        LinkedCaseInsensitiveMap<List<String>> headerMap = new LinkedCaseInsensitiveMap<>(headers.size());
+        headers.forEach((name, values) -> headerMap.put(name, List.copyOf(values)));
+        this.headers = Collections.unmodifiableMap(headerMap);
+        this.parameters = Map.copyOf(parameters);
+        this.sessionId = sessionId;
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        return (scope == SCOPE_REQUEST) ? this.attributes.get(name) : null;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        throw new UnsupportedOperationException("SnapshotRequestAttributes is immutable");
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        throw new UnsupportedOperationException("SnapshotRequestAttributes is immutable");
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        return (scope == SCOPE_REQUEST) ? this.attributes.keySet().toArray(new String[0]) : new String[0];
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        throw new UnsupportedOperationException("SnapshotRequestAttributes is immutable");
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return null;
+    }
+
+    @Override
+    public String getSessionId() {
+        return this.sessionId;
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return this;
+    }
+
+    /**
+     * Returns the first value of the header.
+     *
+     * @param name the header name, case-insensitive
+     * @return the first value or null if the header was not captured
+     */
+    public String getHeader(String name) {
+        List<String> values = this.headers.get(name);
+        return (values != null && !values.isEmpty()) ? values.get(0) : null;
+    }
+
+    /**
+     * Returns all values of the header.
+     *
+     * @param name the header name, case-insensitive
+     * @return the values or an empty list if the header was not captured
+     */
+    public List<String> getHeaders(String name) {
+        return this.headers.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Returns the names of the captured headers.
+     *
+     * @return the header names
+     */
+    public Set<String> getHeaderNames() {
+        return this.headers.keySet();
+    }
+
+    /**
+     * Returns the first value of the parameter.
+     *
+     * @param name the parameter name
+     * @return the first value or null if the parameter was not captured
+     */
+    public String getParameter(String name) {
+        String[] values = this.parameters.get(name);
+        return (values != null && values.length > 0) ? values[0] : null;
+    }
+
+    /**
+     * Returns all values of the parameter.
+     *
+     * @param name the parameter name
+     * @return a copy of the values or null if the parameter was not captured
+     */
+    public String[] getParameterValues(String name) {
+        String[] values = this.parameters.get(name);
+        return (values != null) ? values.clone() : null;
+    }
+
+    /**
+     * Returns the names of the captured parameters.
+     *
+     * @return the parameter names
+     */
+    public Set<String> getParameterNames() {
+        return this.parameters.keySet();
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotRequestAttributes{" +
+                "attributes=" + this.attributes.keySet() +
+                ", headers=" + this.headers.keySet() +
+                ", parameters=" + this.parameters.keySet() +
+                '}';
+    }
+
+}
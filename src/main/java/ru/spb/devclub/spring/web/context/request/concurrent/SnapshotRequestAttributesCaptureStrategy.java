@@ -0,0 +1,88 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link RequestAttributesCaptureStrategy} that copies an allowlist of headers, parameters
+ * and request attributes into a {@link SnapshotRequestAttributes} at the time a task is submitted,
+ * instead of holding the live {@link RequestAttributes} and the request behind it.
+ * <p>
+ * Headers and parameters are only available from {@link ServletRequestAttributes}; for any other
+ * {@link RequestAttributes} only request attributes are copied. A {@link SnapshotRequestAttributes}
+ * is captured as is, so nested submissions share the snapshot.
+ *
+ * @since 1.1
+ */
+public class SnapshotRequestAttributesCaptureStrategy implements RequestAttributesCaptureStrategy {
+
+    private final Set<String> headerNames;
+
+    private final Set<String> parameterNames;
+
+    private final Set<String> attributeNames;
+
+    /**
+     * Creates a new {@link SnapshotRequestAttributesCaptureStrategy}.
+     *
+     * @param headerNames    the names of the headers to copy. Cannot be null.
+     * @param parameterNames the names of the parameters to copy. Cannot be null.
+     * @param attributeNames the names of the request attributes to copy. Cannot be null.
+     */
+    public SnapshotRequestAttributesCaptureStrategy(
+            Collection<String> headerNames,
+            Collection<String> parameterNames,
+            Collection<String> attributeNames) {
+        Assert.notNull(headerNames, "headerNames cannot be null");
+        Assert.notNull(parameterNames, "parameterNames cannot be null");
+        Assert.notNull(attributeNames, "attributeNames cannot be null");
+        this.headerNames = Set.copyOf(headerNames);
+        this.parameterNames = Set.copyOf(parameterNames);
+        this.attributeNames = Set.copyOf(attributeNames);
+    }
+
+    @Override
+    public RequestAttributes capture(RequestAttributes requestAttributes) {
+        if (requestAttributes instanceof SnapshotRequestAttributes) {
+            return requestAttributes;
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        for (String name : this.attributeNames) {
+            Object value = requestAttributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+            if (value != null) {
+                attributes.put(name, value);
+            }
+        }
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return new SnapshotRequestAttributes(attributes, Map.of(), Map.of(), null);
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+        Map<String, List<String>> headers = new HashMap<>();
+        for (String name : this.headerNames) {
+            List<String> values = Collections.list(request.getHeaders(name));
+            if (!values.isEmpty()) {
+                headers.put(name, values);
+            }
+        }
+        Map<String, String[]> parameters = new HashMap<>();
+        for (String name : this.parameterNames) {
+            String[] values = request.getParameterValues(name);
+            if (values != null) {
+                parameters.put(name, values.clone());
+            }
+        }
+        HttpSession session = request.getSession(false);
+        return new SnapshotRequestAttributes(attributes, headers, parameters, (session != null) ? session.getId() : null);
+    }
+
+}
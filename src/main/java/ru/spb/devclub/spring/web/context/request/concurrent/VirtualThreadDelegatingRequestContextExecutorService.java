@@ -0,0 +1,72 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>
+ * An {@link ExecutorService} which starts each task on a new virtual thread and wraps each
+ * {@link Runnable} in a {@link DelegatingRequestContextRunnable} and each {@link Callable} in a
+ * {@link DelegatingRequestContextCallable}.
+ * </p>
+ * <p>
+ * The {@link RequestAttributes} are bound with {@code inheritable=false} and the virtual threads
+ * do not inherit inheritable thread-local values, so a task sees nothing of the submitting thread
+ * but the {@link RequestAttributes} it was submitted with.
+ * Binding and resetting the {@link RequestAttributes} holds no monitor, so it never pins
+ * the virtual thread to its carrier thread.
+ * </p>
+ * <p>
+ * Requires Java 21 or later; on earlier runtimes the constructors throw
+ * {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class VirtualThreadDelegatingRequestContextExecutorService extends DelegatingRequestContextExecutorService {
+
+    /**
+     * Creates a new {@link VirtualThreadDelegatingRequestContextExecutorService} that uses the
+     * specified {@link RequestAttributes}.
+     *
+     * @param threadNamePrefix  the prefix of the names of the virtual threads. Cannot be null.
+     * @param requestAttributes the {@link RequestAttributes} to use for each
+     *                          {@link DelegatingRequestContextRunnable} and each
+     *                          {@link DelegatingRequestContextCallable} or null to default to the current
+     *                          {@link RequestAttributes}
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads
+     */
+    public VirtualThreadDelegatingRequestContextExecutorService(String threadNamePrefix, RequestAttributes requestAttributes) {
+        super(newThreadPerTaskExecutor(threadNamePrefix), requestAttributes, false);
+    }
+
+    /**
+     * Creates a new {@link VirtualThreadDelegatingRequestContextExecutorService} that uses the
+     * current {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @param threadNamePrefix the prefix of the names of the virtual threads. Cannot be null.
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads
+     */
+    public VirtualThreadDelegatingRequestContextExecutorService(String threadNamePrefix) {
+        this(threadNamePrefix, null);
+    }
+
+    /**
+     * Creates a new {@link VirtualThreadDelegatingRequestContextExecutorService} that uses the
+     * current {@link RequestAttributes} from the {@link org.springframework.web.context.request.RequestContextHolder}.
+     *
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads
+     */
+    public VirtualThreadDelegatingRequestContextExecutorService() {
+        this("request-context-virtual-");
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        Assert.notNull(threadNamePrefix, "threadNamePrefix cannot be null");
+        return VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+    }
+
+}
@@ -0,0 +1,29 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An internal factory of virtual thread executors.
+ * <p>
+ * This is the base version of a multi-release class for runtimes without virtual threads;
+ * the Java 21 version is in {@code META-INF/versions/21}.
+ *
+ * @since 1.1
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that starts a new virtual thread for each task.
+     *
+     * @param threadNamePrefix the prefix of the names of the virtual threads
+     * @return never returns
+     * @throws UnsupportedOperationException always, virtual threads require Java 21 or later
+     */
+    static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+
+}
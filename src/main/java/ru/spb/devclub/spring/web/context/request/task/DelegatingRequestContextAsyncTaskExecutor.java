@@ -4,7 +4,9 @@ import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.web.context.request.RequestAttributes;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An {@link AsyncTaskExecutor} which wraps each {@link Runnable} in a
@@ -61,17 +63,76 @@ public class DelegatingRequestContextAsyncTaskExecutor
 
     @Override
     public final void execute(Runnable task, long startTimeout) {
-        getDelegate().execute(wrap(task), startTimeout);
+        Runnable wrapped = wrapOnce(task);
+        try {
+            getDelegate().execute(wrapped, startTimeout);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public final Future<?> submit(Runnable task) {
-        return getDelegate().submit(wrap(task));
+        Runnable wrapped = wrap(task);
+        try {
+            return track(getDelegate().submit(wrapped), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     @Override
     public final <T> Future<T> submit(Callable<T> task) {
-        return getDelegate().submit(wrap(task));
+        Callable<T> wrapped = wrap(task);
+        try {
+            return track(getDelegate().submit(wrapped), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a {@link Runnable} wrapped in a
+     * {@link ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextRunnable}
+     * and returns a {@link CompletableFuture} to build a non-blocking pipeline on.
+     * Cancelling the {@link CompletableFuture} does not interrupt the task.
+     *
+     * @param task the {@link Runnable} to submit. Cannot be null.
+     * @return a {@link CompletableFuture} completed when the task completes
+     * @since 1.1
+     */
+    public final CompletableFuture<Void> submitCompletable(Runnable task) {
+        Runnable wrapped = wrap(task);
+        try {
+            return track(CompletableFuture.runAsync(wrapped, getDelegate()), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a {@link Callable} wrapped in a
+     * {@link ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextCallable}
+     * and returns a {@link CompletableFuture} to build a non-blocking pipeline on.
+     * Cancelling the {@link CompletableFuture} does not interrupt the task.
+     *
+     * @param task the {@link Callable} to submit. Cannot be null.
+     * @param <T>  the result type of {@link Callable}
+     * @return a {@link CompletableFuture} completed with the result or the exception of the task
+     * @since 1.1
+     */
+    public final <T> CompletableFuture<T> submitCompletable(Callable<T> task) {
+        Callable<T> wrapped = wrap(task);
+        try {
+            return track(supplyAsync(wrapped, getDelegate()), wrapped);
+        } catch (RejectedExecutionException e) {
+            onRejected(wrapped);
+            throw e;
+        }
     }
 
     private AsyncTaskExecutor getDelegate() {
@@ -0,0 +1,56 @@
+package ru.spb.devclub.spring.web.context.request.task;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextRunnable;
+
+/**
+ * <p>
+ * A {@link TaskDecorator} which wraps each {@link Runnable} in a {@link DelegatingRequestContextRunnable}
+ * with the current {@link RequestAttributes}, for
+ * {@link org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor#setTaskDecorator(TaskDecorator)}.
+ * </p>
+ * <p>
+ * Unlike {@link DelegatingRequestContextAsyncTaskExecutor} it adds no executor in front of the pool,
+ * so the pool keeps its own {@code submitListenable} and
+ * {@link org.springframework.scheduling.SchedulingTaskExecutor} features. A task submitted without
+ * {@link RequestAttributes} is returned as is, so the same pool can serve background threads.
+ * </p>
+ *
+ * @since 1.1
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    /**
+     * @see RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)
+     */
+    private final boolean inheritable;
+
+    /**
+     * Creates a new {@link RequestContextTaskDecorator}.
+     *
+     * @param inheritable the {@code inheritable} in
+     *                    {@link RequestContextHolder#setRequestAttributes(RequestAttributes, boolean)}
+     */
+    public RequestContextTaskDecorator(boolean inheritable) {
+        this.inheritable = inheritable;
+    }
+
+    /**
+     * Creates a new {@link RequestContextTaskDecorator} with {@code inheritable=false}.
+     */
+    public RequestContextTaskDecorator() {
+        this(false);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return runnable;
+        }
+        return new DelegatingRequestContextRunnable(runnable, requestAttributes, this.inheritable);
+    }
+
+}
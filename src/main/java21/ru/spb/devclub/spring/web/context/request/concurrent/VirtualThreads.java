@@ -0,0 +1,36 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An internal factory of virtual thread executors.
+ * <p>
+ * This is the Java 21 version of a multi-release class.
+ *
+ * @since 1.1
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that starts a new virtual thread for each task.
+     * The threads do not inherit inheritable thread-local values, so the inheritable
+     * {@link org.springframework.web.context.request.RequestContextHolder} of the submitting
+     * thread is not copied to them.
+     *
+     * @param threadNamePrefix the prefix of the names of the virtual threads
+     * @return created {@link ExecutorService}
+     */
+    static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        ThreadFactory factory = Thread.ofVirtual()
+                .name(threadNamePrefix, 0)
+                .inheritInheritableThreadLocals(false)
+                .factory();
+        return Executors.newThreadPerTaskExecutor(factory);
+    }
+
+}
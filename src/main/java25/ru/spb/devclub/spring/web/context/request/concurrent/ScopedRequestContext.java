@@ -0,0 +1,67 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <p>
+ * A fast accessor of the {@link RequestAttributes} bound by {@link ScopedRequestContextRunnable}
+ * and {@link ScopedRequestContextCallable}.
+ * </p>
+ * <p>
+ * This is the Java 25 version of a multi-release class, which binds the {@link RequestAttributes}
+ * to a {@link ScopedValue} for the duration of the task: there is nothing to restore and
+ * nothing is written to a thread-local map.
+ * </p>
+ *
+ * @see PropagationMode
+ * @since 1.1
+ */
+public final class ScopedRequestContext {
+
+    private static final ScopedValue<RequestAttributes> REQUEST_ATTRIBUTES = ScopedValue.newInstance();
+
+    private ScopedRequestContext() {
+    }
+
+    /**
+     * Returns the {@link RequestAttributes} bound to the current task or, if there are none,
+     * the {@link RequestAttributes} from the {@link RequestContextHolder}.
+     *
+     * @return the {@link RequestAttributes} or null
+     */
+    public static RequestAttributes getRequestAttributes() {
+        return REQUEST_ATTRIBUTES.isBound()
+                ? REQUEST_ATTRIBUTES.get()
+                : RequestContextHolder.getRequestAttributes();
+    }
+
+    /**
+     * Runs the {@link Runnable} with the {@link RequestAttributes} bound.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to bind. Cannot be null.
+     * @param task              the {@link Runnable} to run. Cannot be null.
+     */
+    public static void run(RequestAttributes requestAttributes, Runnable task) {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        ScopedValue.where(REQUEST_ATTRIBUTES, requestAttributes).run(task);
+    }
+
+    /**
+     * Calls the {@link Callable} with the {@link RequestAttributes} bound.
+     *
+     * @param requestAttributes the {@link RequestAttributes} to bind. Cannot be null.
+     * @param task              the {@link Callable} to call. Cannot be null.
+     * @param <V>               the result type of {@link Callable}
+     * @return the result of the {@link Callable}
+     * @throws Exception if the {@link Callable} throws it
+     */
+    public static <V> V call(RequestAttributes requestAttributes, Callable<V> task) throws Exception {
+        Assert.notNull(requestAttributes, "requestAttributes cannot be null");
+        return ScopedValue.where(REQUEST_ATTRIBUTES, requestAttributes).call(task::call);
+    }
+
+}
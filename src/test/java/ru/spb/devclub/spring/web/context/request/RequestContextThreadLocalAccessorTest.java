@@ -0,0 +1,56 @@
+package ru.spb.devclub.spring.web.context.request;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class RequestContextThreadLocalAccessorTest extends BaseRequestContextHolderTest {
+
+    static ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    ContextSnapshotFactory factory = ContextSnapshotFactory.builder().build();
+
+    @AfterAll
+    static void afterAll() {
+        EXECUTOR.shutdownNow();
+    }
+
+    @Test
+    void should_be_registered() {
+        Assertions.assertTrue(ContextRegistry.getInstance().getThreadLocalAccessors().stream()
+                .anyMatch(RequestContextThreadLocalAccessor.class::isInstance), "Registered");
+    }
+
+    @Test
+    void should_hold_attrs() throws ExecutionException, InterruptedException {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        ContextSnapshot snapshot = factory.captureAll();
+        RequestAttributes saved = EXECUTOR.submit(snapshot.wrap(RequestContextHolder::getRequestAttributes)).get();
+        Assertions.assertSame(before, saved, "Before and saved");
+        RequestAttributes after = EXECUTOR.submit(RequestContextHolder::getRequestAttributes).get();
+        Assertions.assertNull(after, "Reset after");
+    }
+
+    @Test
+    void should_restore_innerAttrs() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        ContextSnapshot snapshot = factory.captureAll();
+        RequestAttributes inner = Mockito.mock(RequestAttributes.class);
+        RequestContextHolder.setRequestAttributes(inner);
+        try (ContextSnapshot.Scope ignored = snapshot.setThreadLocals()) {
+            Assertions.assertSame(before, RequestContextHolder.getRequestAttributes(), "Before and scoped");
+        }
+        Assertions.assertSame(inner, RequestContextHolder.getRequestAttributes(), "Inner and after");
+    }
+
+}
@@ -0,0 +1,107 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import ru.spb.devclub.spring.web.context.request.concurrent.ReferenceCountedRequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class RequestContextCallableProcessingInterceptorTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(request, response);
+
+    WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+
+    @BeforeEach
+    void setUp() {
+        request.setAsyncSupported(true);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        asyncManager.setTaskExecutor(new SimpleAsyncTaskExecutor());
+        asyncManager.registerCallableInterceptor("requestContext", new RequestContextCallableProcessingInterceptor());
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_run_callable_withRequestContext_afterRequestThreadReturned() throws Exception {
+        attrs.setAttribute("text", "Test", RequestAttributes.SCOPE_REQUEST);
+        CountDownLatch returned = new CountDownLatch(1);
+        AtomicBoolean destroyed = new AtomicBoolean();
+        asyncManager.startCallableProcessing(() -> {
+            returned.await(5L, TimeUnit.SECONDS);
+            RequestAttributes current = RequestContextHolder.currentRequestAttributes();
+            current.registerDestructionCallback("bean", () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+            return current;
+        });
+        returnRequestThread();
+        returned.countDown();
+        RequestAttributes result = (RequestAttributes) awaitConcurrentResult();
+        Assertions.assertTrue(result instanceof ReferenceCountedRequestAttributes, "Request attributes");
+        Assertions.assertEquals("Test", result.getAttribute("text", RequestAttributes.SCOPE_REQUEST), "Attribute");
+        Assertions.assertFalse(destroyed.get(), "Destroyed before completion");
+        request.getAsyncContext().complete();
+        Assertions.assertTrue(destroyed.get(), "Destroyed after completion");
+    }
+
+    @Test
+    void should_restore_asyncThreadContext() {
+        RequestContextCallableProcessingInterceptor interceptor = new RequestContextCallableProcessingInterceptor();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        Callable<Object> task = () -> null;
+        interceptor.beforeConcurrentHandling(webRequest, task);
+        RequestAttributes asyncThreadAttrs = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(asyncThreadAttrs);
+        interceptor.preProcess(webRequest, task);
+        Assertions.assertTrue(RequestContextHolder.getRequestAttributes() instanceof ReferenceCountedRequestAttributes,
+                "In callable");
+        interceptor.postProcess(webRequest, task, null);
+        Assertions.assertSame(asyncThreadAttrs, RequestContextHolder.getRequestAttributes(), "After callable");
+        interceptor.afterCompletion(webRequest, task);
+        Assertions.assertNull(AsyncRequestContext.get(webRequest), "Released");
+    }
+
+    @Test
+    void should_run_callable_withoutContext_ifThereIsNone() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        asyncManager.startCallableProcessing(() -> String.valueOf(RequestContextHolder.getRequestAttributes()));
+        Assertions.assertEquals("null", awaitConcurrentResult(), "Request attributes");
+    }
+
+    private void returnRequestThread() {
+        RequestContextHolder.resetRequestAttributes();
+        attrs.requestCompleted();
+    }
+
+    private Object awaitConcurrentResult() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!asyncManager.hasConcurrentResult() && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assertions.assertTrue(asyncManager.hasConcurrentResult(), "Concurrent result");
+        return asyncManager.getConcurrentResult();
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.spb.devclub.spring.web.context.request.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import ru.spb.devclub.spring.web.context.request.concurrent.ReferenceCountedRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class RequestContextDeferredResultProcessingInterceptorTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(request, response);
+
+    WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+
+    AtomicBoolean destroyed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        request.setAsyncSupported(true);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        RequestContextHolder.setRequestAttributes(attrs);
+        ReferenceCountedRequestAttributes.of(attrs)
+                .registerDestructionCallback("bean", () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_keep_requestScope_untilResultIsSet() throws Exception {
+        asyncManager.registerDeferredResultInterceptor("requestContext",
+                new RequestContextDeferredResultProcessingInterceptor());
+        DeferredResult<String> deferredResult = new DeferredResult<>();
+        asyncManager.startDeferredResultProcessing(deferredResult);
+        attrs.requestCompleted();
+        Assertions.assertFalse(destroyed.get(), "Destroyed when request thread returned");
+        deferredResult.setResult("Test");
+        request.getAsyncContext().complete();
+        Assertions.assertTrue(destroyed.get(), "Destroyed after completion");
+    }
+
+    @Test
+    void should_destroy_requestScope_whenRequestThreadReturns_withoutInterceptor() throws Exception {
+        asyncManager.startDeferredResultProcessing(new DeferredResult<>());
+        attrs.requestCompleted();
+        Assertions.assertTrue(destroyed.get(), "Destroyed when request thread returned");
+    }
+
+}
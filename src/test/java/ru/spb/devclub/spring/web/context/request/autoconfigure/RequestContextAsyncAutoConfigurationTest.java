@@ -0,0 +1,40 @@
+package ru.spb.devclub.spring.web.context.request.autoconfigure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import ru.spb.devclub.spring.web.context.request.async.RequestContextAsyncConfigurer;
+
+class RequestContextAsyncAutoConfigurationTest {
+
+    WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RequestContextAsyncAutoConfiguration.class));
+
+    @Test
+    void should_register_asyncConfigurer() {
+        runner.run(context -> Assertions.assertNotNull(context.getBean(RequestContextAsyncConfigurer.class)));
+    }
+
+    @Test
+    void should_backOff_withAsyncConfigurer() {
+        RequestContextAsyncConfigurer custom = new RequestContextAsyncConfigurer(true);
+        runner.withBean(RequestContextAsyncConfigurer.class, () -> custom).run(context ->
+                Assertions.assertSame(custom, context.getBean(RequestContextAsyncConfigurer.class)));
+    }
+
+    @Test
+    void should_backOff_whenDisabled() {
+        runner.withPropertyValues("request-context.async.enabled=false").run(context ->
+                Assertions.assertTrue(context.getBeansOfType(RequestContextAsyncConfigurer.class).isEmpty()));
+    }
+
+    @Test
+    void should_backOff_inNonWebApplication() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(RequestContextAsyncAutoConfiguration.class))
+                .run(context -> Assertions.assertTrue(context.getBeansOfType(RequestContextAsyncConfigurer.class).isEmpty()));
+    }
+
+}
@@ -0,0 +1,50 @@
+package ru.spb.devclub.spring.web.context.request.autoconfigure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.spb.devclub.spring.web.context.request.task.RequestContextTaskDecorator;
+
+class RequestContextTaskDecoratorAutoConfigurationTest {
+
+    WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    RequestContextTaskDecoratorAutoConfiguration.class,
+                    TaskExecutionAutoConfiguration.class));
+
+    @Test
+    void should_decorate_applicationTaskExecutor() {
+        runner.run(context -> {
+            RequestContextTaskDecorator decorator = context.getBean(RequestContextTaskDecorator.class);
+            ThreadPoolTaskExecutor executor = context.getBean(ThreadPoolTaskExecutor.class);
+            Assertions.assertSame(decorator, ReflectionTestUtils.getField(executor, "taskDecorator"), "Task decorator");
+        });
+    }
+
+    @Test
+    void should_backOff_withTaskDecorator() {
+        TaskDecorator custom = runnable -> runnable;
+        runner.withBean(TaskDecorator.class, () -> custom).run(context ->
+                Assertions.assertTrue(context.getBeansOfType(RequestContextTaskDecorator.class).isEmpty()));
+    }
+
+    @Test
+    void should_backOff_whenDisabled() {
+        runner.withPropertyValues("request-context.task-decorator.enabled=false").run(context ->
+                Assertions.assertTrue(context.getBeansOfType(RequestContextTaskDecorator.class).isEmpty()));
+    }
+
+    @Test
+    void should_backOff_inNonWebApplication() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(RequestContextTaskDecoratorAutoConfiguration.class))
+                .run(context -> Assertions.assertTrue(context.getBeansOfType(RequestContextTaskDecorator.class).isEmpty()));
+    }
+
+}
@@ -0,0 +1,198 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class AffinityDelegatingRequestContextExecutorServiceTest {
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    AffinityDelegatingRequestContextExecutorService executor = new AffinityDelegatingRequestContextExecutorService(4);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_hold_attrs() throws Exception {
+        Future<RequestAttributes> future = executor.submit(RequestContextHolder::getRequestAttributes);
+        Assertions.assertSame(attrs, future.get(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_run_tasksOfRequest_onSameWorker() throws Exception {
+        List<Future<Thread>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(Thread::currentThread));
+        }
+        Thread worker = futures.get(0).get(5L, TimeUnit.SECONDS);
+        for (Future<Thread> future : futures) {
+            Assertions.assertSame(worker, future.get(5L, TimeUnit.SECONDS), "Worker");
+        }
+        Assertions.assertTrue(worker.getName().startsWith(
+                AffinityDelegatingRequestContextExecutorService.DEFAULT_THREAD_NAME_PREFIX), "Name");
+    }
+
+    @Test
+    void should_route_bySpecifiedAttrs() throws Exception {
+        ServletRequestAttributes specified = new ServletRequestAttributes(new MockHttpServletRequest());
+        AffinityDelegatingRequestContextExecutorService fixed = new AffinityDelegatingRequestContextExecutorService(
+                4, specified);
+        try {
+            List<Future<RequestAttributes>> futures = new ArrayList<>();
+            List<Thread> workers = Collections.synchronizedList(new ArrayList<>());
+            for (int i = 0; i < 20; i++) {
+                if (i % 5 == 0) {
+                    RequestContextHolder.resetRequestAttributes();
+                } else {
+                    RequestContextHolder.setRequestAttributes(
+                            new ServletRequestAttributes(new MockHttpServletRequest()));
+                }
+                futures.add(fixed.submit(() -> {
+                    workers.add(Thread.currentThread());
+                    return RequestContextHolder.getRequestAttributes();
+                }));
+            }
+            for (Future<RequestAttributes> future : futures) {
+                Assertions.assertSame(specified, future.get(5L, TimeUnit.SECONDS), "Attrs");
+            }
+            Assertions.assertEquals(1L, workers.stream().distinct().count(), "Workers");
+        } finally {
+            fixed.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_keep_attrs_bound_betweenTasksOfRequest() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.submit(() -> {
+            blocked.await(5L, TimeUnit.SECONDS);
+            return null;
+        });
+        Future<RequestAttributes> next = executor.submit(() -> {
+            RequestAttributes bound = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.resetRequestAttributes();
+            return bound;
+        });
+        Future<RequestAttributes> rebound = executor.submit(RequestContextHolder::getRequestAttributes);
+        blocked.countDown();
+        Assertions.assertSame(attrs, next.get(5L, TimeUnit.SECONDS), "Bound");
+        Assertions.assertSame(attrs, rebound.get(5L, TimeUnit.SECONDS), "Bound again after reset");
+    }
+
+    @Test
+    void should_reset_attrs_forTaskWithoutRequest() throws Exception {
+        AffinityDelegatingRequestContextExecutorService single = new AffinityDelegatingRequestContextExecutorService(1);
+        try {
+            single.setContextOptional(true);
+            single.submit(() -> {
+            }).get(5L, TimeUnit.SECONDS);
+            RequestContextHolder.resetRequestAttributes();
+            Assertions.assertNull(single.submit(RequestContextHolder::getRequestAttributes).get(5L, TimeUnit.SECONDS));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_restore_attrs_ofNestedWrapper() throws Exception {
+        ServletRequestAttributes other = new ServletRequestAttributes(new MockHttpServletRequest());
+        AtomicReference<RequestAttributes> nested = new AtomicReference<>();
+        Future<RequestAttributes> future = executor.submit(() -> {
+            new DelegatingRequestContextRunnable(() -> nested.set(RequestContextHolder.getRequestAttributes()), other)
+                    .run();
+            return RequestContextHolder.getRequestAttributes();
+        });
+        Assertions.assertSame(attrs, future.get(5L, TimeUnit.SECONDS), "Restored");
+        Assertions.assertSame(other, nested.get(), "Nested");
+    }
+
+    @Test
+    void should_not_leak_attrs_ofEarlierTask_intoScopedTask() throws Exception {
+        AffinityDelegatingRequestContextExecutorService single = new AffinityDelegatingRequestContextExecutorService(1);
+        try {
+            single.setPropagationMode(PropagationMode.SCOPED_VALUE);
+            CountDownLatch blocked = new CountDownLatch(1);
+            single.submit(() -> blocked.await(5L, TimeUnit.SECONDS));
+            ServletRequestAttributes earlier = new ServletRequestAttributes(new MockHttpServletRequest());
+            single.submit(DelegatingRequestContextRunnable.create(() -> {
+            }, earlier));
+            Future<RequestAttributes> future = single.submit(RequestContextHolder::getRequestAttributes);
+            blocked.countDown();
+            Assertions.assertNull(future.get(5L, TimeUnit.SECONDS), "Attrs of the earlier task");
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_restore_attrs_ofNestedWrapper_inSnapshotTask() throws Exception {
+        AffinityDelegatingRequestContextExecutorService single = new AffinityDelegatingRequestContextExecutorService(1);
+        try {
+            single.setContextAccessors(Collections.singletonList(ContextAccessor.mdc()));
+            ServletRequestAttributes nested = new ServletRequestAttributes(new MockHttpServletRequest());
+            Future<RequestAttributes> future = single.submit(() -> {
+                DelegatingRequestContextRunnable.create(() -> {
+                }, nested).run();
+                return RequestContextHolder.getRequestAttributes();
+            });
+            Assertions.assertSame(attrs, future.get(5L, TimeUnit.SECONDS), "Attrs after nested wrapper");
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_run_queuedTasks_afterShutdown() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.submit(() -> {
+            blocked.await(5L, TimeUnit.SECONDS);
+            return null;
+        });
+        Future<String> queued = executor.submit(() -> "queued");
+        executor.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+        }));
+        blocked.countDown();
+        Assertions.assertEquals("queued", queued.get(5L, TimeUnit.SECONDS));
+        Assertions.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+    }
+
+    @Test
+    void should_return_queuedTasks_onShutdownNow() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(5L));
+            return null;
+        });
+        executor.submit(() -> {
+        });
+        Assertions.assertTrue(started.await(5L, TimeUnit.SECONDS), "Started");
+        Assertions.assertEquals(1, executor.shutdownNow().size(), "Queued tasks");
+        Assertions.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+    }
+
+}
@@ -0,0 +1,159 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ConcurrentRequestAttributesTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    ServletRequestAttributes attrs = new ServletRequestAttributes(request);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_share_instance_perRequest() {
+        ConcurrentRequestAttributes concurrent = ConcurrentRequestAttributes.of(attrs);
+        Assertions.assertSame(concurrent, ConcurrentRequestAttributes.of(attrs), "Of attrs");
+        Assertions.assertSame(concurrent, ConcurrentRequestAttributes.of(concurrent), "Of concurrent");
+        Assertions.assertSame(attrs, concurrent.getRequestAttributes(), "Underlying");
+    }
+
+    @Test
+    void should_writeBack_changes_onLastRelease() {
+        request.setAttribute("removed", "value");
+        ConcurrentRequestAttributes concurrent = ConcurrentRequestAttributes.of(attrs);
+        concurrent.retain();
+        concurrent.retain();
+        concurrent.setAttribute("name", "value", RequestAttributes.SCOPE_REQUEST);
+        concurrent.removeAttribute("removed", RequestAttributes.SCOPE_REQUEST);
+        Assertions.assertNull(concurrent.getAttribute("removed", RequestAttributes.SCOPE_REQUEST), "Removed");
+        concurrent.release();
+        Assertions.assertNull(request.getAttribute("name"), "Written back before last release");
+        Assertions.assertEquals("value", request.getAttribute("removed"), "Removed before last release");
+        concurrent.release();
+        Assertions.assertEquals("value", request.getAttribute("name"), "Written back");
+        Assertions.assertNull(request.getAttribute("removed"), "Removed");
+        Assertions.assertThrows(IllegalStateException.class, concurrent::release);
+    }
+
+    @Test
+    void should_copy_requestAttributes_once() {
+        request.setAttribute("name", "request");
+        ConcurrentRequestAttributes concurrent = ConcurrentRequestAttributes.of(attrs);
+        concurrent.retain();
+        request.setAttribute("other", "request");
+        ConcurrentRequestAttributes.of(attrs);
+        Assertions.assertEquals("request", concurrent.getAttribute("name", RequestAttributes.SCOPE_REQUEST), "Copied");
+        Assertions.assertNull(concurrent.getAttribute("other", RequestAttributes.SCOPE_REQUEST), "Set after the copy");
+        concurrent.release();
+    }
+
+    @Test
+    void should_writeBack_onRequestThread_only() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setConcurrentRequestAttributes(true);
+            wrapped.submit(() -> RequestContextHolder.currentRequestAttributes()
+                    .setAttribute("name", "value", RequestAttributes.SCOPE_REQUEST)).get();
+            Assertions.assertEquals(0, ConcurrentRequestAttributes.of(attrs).getReferenceCount(), "References");
+            Assertions.assertEquals("value", request.getAttribute("name"), "Written back on the request thread");
+            wrapped.submit(() -> RequestContextHolder.currentRequestAttributes()
+                    .removeAttribute("name", RequestAttributes.SCOPE_REQUEST)).get();
+            Assertions.assertEquals("value", request.getAttribute("name"), "Removed on a worker thread");
+            attrs.requestCompleted();
+            Assertions.assertNull(request.getAttribute("name"), "Removed on request completion");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_writeBack_changes_ofParallelTasks() throws Exception {
+        ExecutorService real = Executors.newFixedThreadPool(4);
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setConcurrentRequestAttributes(true);
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String name = "name" + i;
+                tasks.add(() -> {
+                    RequestAttributes current = RequestContextHolder.currentRequestAttributes();
+                    Assertions.assertInstanceOf(ConcurrentRequestAttributes.class, current);
+                    current.setAttribute(name, name, RequestAttributes.SCOPE_REQUEST);
+                    return current.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+                });
+            }
+            for (Future<Object> future : wrapped.invokeAll(tasks)) {
+                future.get();
+            }
+            real.shutdown();
+            Assertions.assertEquals(0, ConcurrentRequestAttributes.of(attrs).getReferenceCount(), "References");
+            for (int i = 0; i < 100; i++) {
+                Assertions.assertEquals("name" + i, request.getAttribute("name" + i), "Written back");
+            }
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_writeBack_beforeRelease_whenDeferRequestDestruction() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setConcurrentRequestAttributes(true);
+            wrapped.setDeferRequestDestruction(true);
+            AtomicBoolean destroyed = new AtomicBoolean();
+            ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+            counted.registerDestructionCallback("check", () -> destroyed.set(
+                    "value".equals(counted.getAttribute("name", RequestAttributes.SCOPE_REQUEST))),
+                    RequestAttributes.SCOPE_REQUEST);
+            Future<?> future = wrapped.submit(() -> RequestContextHolder.currentRequestAttributes()
+                    .setAttribute("name", "value", RequestAttributes.SCOPE_REQUEST));
+            attrs.requestCompleted();
+            future.get();
+            real.shutdown();
+            Assertions.assertTrue(destroyed.get(), "Written back before destruction");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_release_rejectedTask() {
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        wrapped.setConcurrentRequestAttributes(true);
+        wrapped.setDeferRequestDestruction(true);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> wrapped.execute(() -> {
+        }));
+        Assertions.assertEquals(0, ConcurrentRequestAttributes.of(attrs).getReferenceCount(), "Concurrent references");
+        Assertions.assertEquals(1, ReferenceCountedRequestAttributes.of(attrs).getReferenceCount(), "Counted references");
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class ContextSnapshotTest {
+
+    static final ThreadLocal<String> TENANT = new ThreadLocal<>();
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    List<ContextAccessor<?>> accessors = Arrays.asList(
+            ContextAccessor.localeContext(false),
+            ContextAccessor.mdc(),
+            ContextAccessor.of(TENANT::get, TENANT::set, TENANT::remove));
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+        LocaleContextHolder.setLocale(Locale.FRANCE);
+        MDC.put("traceId", "abc");
+        TENANT.set("acme");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        LocaleContextHolder.resetLocaleContext();
+        MDC.clear();
+        TENANT.remove();
+    }
+
+    @Test
+    void should_restore_allContexts_inOnePass() throws Exception {
+        Callable<List<Object>> task = ContextSnapshot.capture(accessors).wrap(ContextSnapshotTest::contexts);
+        RequestAttributes other = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(other);
+        LocaleContextHolder.setLocale(Locale.GERMANY);
+        MDC.put("traceId", "xyz");
+        TENANT.remove();
+        Assertions.assertEquals(Arrays.asList(attrs, Locale.FRANCE, "abc", "acme"), task.call(), "In task");
+        Assertions.assertEquals(Arrays.asList(other, Locale.GERMANY, "xyz", null), contexts(), "After task");
+    }
+
+    @Test
+    void should_propagate_allContexts_throughExecutor() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService executor = new DelegatingRequestContextExecutorService(real);
+            executor.setContextAccessors(accessors);
+            Assertions.assertEquals(Arrays.asList(attrs, Locale.FRANCE, "abc", "acme"),
+                    executor.submit(ContextSnapshotTest::contexts).get(5L, TimeUnit.SECONDS), "In task");
+            executor.setContextAccessors(Collections.emptyList());
+            Assertions.assertEquals(Arrays.asList(attrs, Locale.getDefault(), null, null),
+                    executor.submit(ContextSnapshotTest::contexts).get(5L, TimeUnit.SECONDS), "Without accessors");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_clear_contexts_absentOnCapture() throws Exception {
+        MDC.clear();
+        TENANT.remove();
+        Callable<List<Object>> task = ContextSnapshot.capture(accessors).wrap(ContextSnapshotTest::contexts);
+        MDC.put("traceId", "xyz");
+        TENANT.set("other");
+        Assertions.assertEquals(Arrays.asList(attrs, Locale.FRANCE, null, null), task.call(), "In task");
+        Assertions.assertEquals("xyz", MDC.get("traceId"), "MDC after task");
+        Assertions.assertEquals("other", TENANT.get(), "Tenant after task");
+    }
+
+    @Test
+    void should_not_wrap_snapshot_again() {
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(Runnable::run);
+        executor.setContextAccessors(accessors);
+        executor.execute(ContextSnapshot.capture(accessors).wrap(() -> {
+        }));
+        Assertions.assertEquals(1L, executor.getCollapsedWrapCount(), "Collapsed");
+    }
+
+    private static List<Object> contexts() {
+        return Arrays.asList(RequestContextHolder.getRequestAttributes(), LocaleContextHolder.getLocale(),
+                MDC.get("traceId"), TENANT.get());
+    }
+
+}
@@ -0,0 +1,49 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+class DelegatingRequestContextBiFunctionTest extends BaseRequestContextHolderTest {
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_hold_attrs() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        AtomicReference<RequestAttributes> holder = new AtomicReference<>();
+        BiFunction<Object, Object, RequestAttributes> function = (t, u) -> RequestContextHolder.getRequestAttributes();
+        holder.set(CompletableFuture.completedFuture("value")
+                .thenCombineAsync(CompletableFuture.completedFuture("other"),
+                        DelegatingRequestContextBiFunction.create(function, null), executor)
+                .join());
+        Assertions.assertSame(before, holder.get(), "Before and saved");
+        Assertions.assertSame(before, RequestContextHolder.getRequestAttributes(), "Before and after");
+    }
+
+    @Test
+    void should_hold_customAttrs() {
+        RequestAttributes custom = Mockito.mock(RequestAttributes.class);
+        AtomicReference<RequestAttributes> holder = new AtomicReference<>();
+        BiFunction<Object, Object, RequestAttributes> function = (t, u) -> RequestContextHolder.getRequestAttributes();
+        holder.set(DelegatingRequestContextBiFunction.create(function, custom).apply("value", "other"));
+        Assertions.assertSame(custom, holder.get(), "Custom and saved");
+        Assertions.assertNotSame(custom, RequestContextHolder.getRequestAttributes(), "Custom and after");
+    }
+
+}
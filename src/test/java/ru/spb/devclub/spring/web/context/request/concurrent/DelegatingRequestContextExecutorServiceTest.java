@@ -3,16 +3,21 @@ package ru.spb.devclub.spring.web.context.request.concurrent;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class DelegatingRequestContextExecutorServiceTest extends BaseRequestContextHolderTest {
 
@@ -65,6 +70,81 @@ class DelegatingRequestContextExecutorServiceTest extends BaseRequestContextHold
         wrap(executor).invokeAny(List.of(callable), 1, TimeUnit.SECONDS);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void should_passThrough_callable_withoutAttrs_whenContextOptional() {
+        RequestContextHolder.resetRequestAttributes();
+        ExecutorService mock = Mockito.mock(ExecutorService.class);
+        DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(mock);
+        wrapped.setContextOptional(true);
+        wrapped.submit(callable);
+        Mockito.verify(mock).submit(Mockito.same((Callable<Object>) callable));
+    }
+
+    @Test
+    void should_hold_attrs_onSubmitCompletable() {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            RequestAttributes before = RequestContextHolder.getRequestAttributes();
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            RequestAttributes saved = wrapped.submitCompletable(RequestContextHolder::getRequestAttributes).join();
+            Assertions.assertSame(before, saved, "Before and saved");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_hold_attrs_onInvokeAllBatched() throws InterruptedException, ExecutionException {
+        ExecutorService real = Executors.newFixedThreadPool(4);
+        try {
+            RequestAttributes before = RequestContextHolder.getRequestAttributes();
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            List<Callable<RequestAttributes>> tasks = Collections.nCopies(100, RequestContextHolder::getRequestAttributes);
+            List<Future<RequestAttributes>> futures = wrapped.invokeAllBatched(tasks, 4);
+            Assertions.assertEquals(100, futures.size(), "Futures");
+            for (Future<RequestAttributes> future : futures) {
+                Assertions.assertSame(before, future.get(), "Before and saved");
+            }
+            Assertions.assertNull(real.submit(RequestContextHolder::getRequestAttributes).get(), "Worker after");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_submit_parallelismWorkers_onInvokeAllBatched() throws InterruptedException {
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService mock = Mockito.mock(ExecutorService.class);
+        Mockito.doAnswer(invocation -> {
+            Runnable worker = invocation.getArgument(0);
+            Assertions.assertInstanceOf(DelegatingRequestContextRunnable.class, worker);
+            workers.incrementAndGet();
+            worker.run();
+            return null;
+        }).when(mock).execute(Mockito.any());
+        List<Callable<Object>> tasks = Collections.nCopies(10, callable::call);
+        new DelegatingRequestContextExecutorService(mock).invokeAllBatched(tasks, 3);
+        Assertions.assertEquals(3, workers.get(), "Workers");
+    }
+
+    @Test
+    void should_complete_failedTasks_onInvokeAllBatched() throws InterruptedException, ExecutionException {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            List<Callable<String>> tasks = List.of(() -> {
+                throw new IllegalStateException();
+            }, () -> "done");
+            List<Future<String>> futures = wrapped.invokeAllBatched(tasks, 2);
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class, futures.get(0)::get);
+            Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+            Assertions.assertEquals("done", futures.get(1).get());
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
     @Test
     void should_shutdown() {
         ExecutorService mock = Mockito.mock(ExecutorService.class);
@@ -4,9 +4,19 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ExtendWith(MockitoExtension.class)
 public class DelegatingRequestContextExecutorTest extends BaseRequestContextHolderTest {
@@ -23,6 +33,112 @@ public class DelegatingRequestContextExecutorTest extends BaseRequestContextHold
         wrap(executor).execute(runnable);
     }
 
+    @Test
+    void should_passThrough_runnable_withoutAttrs_whenContextOptional() {
+        RequestContextHolder.resetRequestAttributes();
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(
+                command -> Assertions.assertSame(runnable, command, "Runnable"));
+        wrapped.setContextOptional(true);
+        wrapped.execute(runnable);
+    }
+
+    @Test
+    void should_fail_withoutAttrs() {
+        RequestContextHolder.resetRequestAttributes();
+        Executor wrapped = wrap(executor);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> wrapped.execute(runnable));
+    }
+
+    @Test
+    void should_not_rewrap_wrappedRunnable() {
+        Runnable wrappedRunnable = DelegatingRequestContextRunnable.create(runnable, null);
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(
+                command -> Assertions.assertSame(wrappedRunnable, command, "Runnable"));
+        wrapped.execute(wrappedRunnable);
+        Assertions.assertEquals(1L, wrapped.getCollapsedWrapCount(), "Collapsed wraps");
+    }
+
+    @Test
+    void should_wrap_once_inChainedExecutors() {
+        DelegatingRequestContextExecutor inner = new DelegatingRequestContextExecutor(executor);
+        DelegatingRequestContextExecutor outer = new DelegatingRequestContextExecutor(inner);
+        outer.execute(runnable);
+        Assertions.assertEquals(0L, outer.getCollapsedWrapCount(), "Outer collapsed wraps");
+        Assertions.assertEquals(1L, inner.getCollapsedWrapCount(), "Inner collapsed wraps");
+    }
+
+    @Test
+    void should_wrap_again_scopedValueRunnable_forHolder() {
+        List<Runnable> submitted = new ArrayList<>();
+        DelegatingRequestContextExecutor inner = new DelegatingRequestContextExecutor(submitted::add);
+        DelegatingRequestContextExecutor outer = new DelegatingRequestContextExecutor(inner);
+        outer.setPropagationMode(PropagationMode.SCOPED_VALUE);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        AtomicReference<RequestAttributes> seen = new AtomicReference<>();
+        outer.execute(() -> seen.set(RequestContextHolder.getRequestAttributes()));
+        Assertions.assertEquals(0L, inner.getCollapsedWrapCount(), "Inner collapsed wraps");
+        RequestContextHolder.resetRequestAttributes();
+        submitted.get(0).run();
+        Assertions.assertSame(requestAttributes, seen.get(), "Attrs in the holder");
+    }
+
+    @Test
+    void should_wrap_once_inChainedScopedValueExecutors() {
+        List<Runnable> submitted = new ArrayList<>();
+        DelegatingRequestContextExecutor inner = new DelegatingRequestContextExecutor(submitted::add);
+        inner.setPropagationMode(PropagationMode.SCOPED_VALUE);
+        DelegatingRequestContextExecutor outer = new DelegatingRequestContextExecutor(inner);
+        outer.setPropagationMode(PropagationMode.SCOPED_VALUE);
+        outer.execute(runnable);
+        Assertions.assertInstanceOf(ScopedRequestContextRunnable.class, submitted.get(0), "Scoped wrapper");
+        Assertions.assertEquals(1L, inner.getCollapsedWrapCount(), "Inner collapsed wraps");
+    }
+
+    @Test
+    void should_check_deadline_ofWrappedRunnable() {
+        List<Runnable> submitted = new ArrayList<>();
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(submitted::add);
+        wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(1L, TimeUnit.MINUTES));
+        wrapped.execute(DelegatingRequestContextRunnable.create(runnable, RequestContextHolder.getRequestAttributes()));
+        Assertions.assertInstanceOf(DeadlineCheckingRunnable.class, submitted.get(0), "Deadline wrapper");
+        Assertions.assertEquals(1L, wrapped.getCollapsedWrapCount(), "Collapsed wraps");
+    }
+
+    @Test
+    void should_retain_request_forWrappedRunnable() {
+        ServletRequestAttributes servletAttrs = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(servletAttrs);
+        List<Runnable> submitted = new ArrayList<>();
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(submitted::add);
+        wrapped.setDeferRequestDestruction(true);
+        AtomicReference<RequestAttributes> seen = new AtomicReference<>();
+        wrapped.execute(DelegatingRequestContextRunnable.create(
+                () -> seen.set(RequestContextHolder.getRequestAttributes()), servletAttrs));
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(servletAttrs);
+        Assertions.assertEquals(2, counted.getReferenceCount(), "References before run");
+        submitted.get(0).run();
+        Assertions.assertEquals(1, counted.getReferenceCount(), "References after run");
+        Assertions.assertSame(servletAttrs, seen.get(), "Attrs of the wrapped runnable");
+    }
+
+    @Test
+    void should_apply_contextAccessors_toWrappedRunnable() {
+        List<Runnable> submitted = new ArrayList<>();
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(submitted::add);
+        wrapped.setContextAccessors(Collections.singletonList(ContextAccessor.mdc()));
+        AtomicReference<String> seen = new AtomicReference<>();
+        MDC.put("traceId", "abc");
+        try {
+            wrapped.execute(DelegatingRequestContextRunnable.create(() -> seen.set(MDC.get("traceId")),
+                    RequestContextHolder.getRequestAttributes()));
+        } finally {
+            MDC.clear();
+        }
+        submitted.get(0).run();
+        Assertions.assertEquals("abc", seen.get(), "MDC");
+        Assertions.assertNull(MDC.get("traceId"), "MDC after run");
+    }
+
     protected static class TestExecutor implements Executor {
         @Override
         public void execute(Runnable command) {
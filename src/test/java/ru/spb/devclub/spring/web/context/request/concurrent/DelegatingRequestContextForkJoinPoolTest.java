@@ -0,0 +1,135 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class DelegatingRequestContextForkJoinPoolTest extends BaseRequestContextHolderTest {
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    DelegatingRequestContextForkJoinPool wrapped = new DelegatingRequestContextForkJoinPool(pool);
+    Set<Object> seen = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void should_hold_attrs_inStolenSubtasks() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        int sum = wrapped.invoke(new SumTask(0, 10_000));
+        Assertions.assertEquals(49_995_000, sum, "Sum");
+        Assertions.assertEquals(Set.of(before), seen, "Attrs in leaves");
+    }
+
+    @Test
+    void should_hold_attrs_inPlainRootTask() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        RequestAttributes saved = wrapped.submit(new RecursiveTask<RequestAttributes>() {
+            @Override
+            protected RequestAttributes compute() {
+                return RequestContextHolder.getRequestAttributes();
+            }
+        }).join();
+        Assertions.assertSame(before, saved, "Before and saved");
+    }
+
+    @Test
+    void should_reset_workers() throws Exception {
+        wrapped.invoke(new SumTask(0, 10_000));
+        RequestAttributes after = pool.submit(RequestContextHolder::getRequestAttributes).get();
+        Assertions.assertNull(after, "Worker after");
+    }
+
+    @Test
+    void should_release_request_ofRejectedTask() {
+        ServletRequestAttributes servletAttrs = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(servletAttrs);
+        wrapped.setDeferRequestDestruction(true);
+        pool.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> wrapped.execute(new ValueTask()));
+        Assertions.assertThrows(RejectedExecutionException.class, () -> wrapped.submit(new ValueTask()));
+        Assertions.assertEquals(1, ReferenceCountedRequestAttributes.of(servletAttrs).getReferenceCount(),
+                "References");
+    }
+
+    @Test
+    void should_release_request_ofTaskCancelled_beforeStart() throws Exception {
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            ServletRequestAttributes servletAttrs = new ServletRequestAttributes(new MockHttpServletRequest());
+            RequestContextHolder.setRequestAttributes(servletAttrs);
+            DelegatingRequestContextForkJoinPool wrappedSingle = new DelegatingRequestContextForkJoinPool(single);
+            wrappedSingle.setDeferRequestDestruction(true);
+            CountDownLatch blocked = new CountDownLatch(1);
+            single.execute(() -> {
+                try {
+                    blocked.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            ForkJoinTask<String> submitted = wrappedSingle.submit(new ValueTask());
+            ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(servletAttrs);
+            Assertions.assertEquals(2, counted.getReferenceCount(), "References while queued");
+            Assertions.assertTrue(submitted.cancel(false), "Cancelled");
+            Assertions.assertEquals(1, counted.getReferenceCount(), "References after cancel");
+            blocked.countDown();
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    static class ValueTask extends RecursiveTask<String> {
+
+        @Override
+        protected String compute() {
+            return "value";
+        }
+
+    }
+
+    class SumTask extends DelegatingRequestContextRecursiveTask<Integer> {
+
+        final int from;
+        final int to;
+
+        SumTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer computeWithRequestContext() {
+            if (to - from <= 100) {
+                seen.add(RequestContextHolder.getRequestAttributes());
+                int sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += i;
+                }
+                return sum;
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(from, middle);
+            left.fork();
+            return new SumTask(middle, to).compute() + left.join();
+        }
+
+    }
+
+}
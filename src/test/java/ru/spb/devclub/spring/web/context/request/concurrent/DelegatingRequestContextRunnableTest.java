@@ -11,9 +11,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 @ExtendWith(MockitoExtension.class)
@@ -89,6 +92,34 @@ class DelegatingRequestContextRunnableTest {
         Assertions.assertSame(innerBefore, innerAfter, "InnerBefore and innerAfter");
     }
 
+    @Test
+    void should_restore_eachThread_whenRanConcurrently() throws Exception {
+        RequestAttributes custom = Mockito.mock(RequestAttributes.class);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Runnable runnable = DelegatingRequestContextRunnable.create(() -> {
+            try {
+                barrier.await(5L, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, custom);
+        RequestAttributes otherBefore = Mockito.mock(RequestAttributes.class);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            Future<RequestAttributes> otherAfter = other.submit(() -> {
+                RequestContextHolder.setRequestAttributes(otherBefore);
+                runnable.run();
+                return RequestContextHolder.getRequestAttributes();
+            });
+            RequestAttributes before = RequestContextHolder.getRequestAttributes();
+            runnable.run();
+            Assertions.assertSame(before, RequestContextHolder.getRequestAttributes(), "Before and after");
+            Assertions.assertSame(otherBefore, otherAfter.get(), "Other before and after");
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
     @Test
     void should_toString() {
         Runnable mock = Mockito.mock(Runnable.class);
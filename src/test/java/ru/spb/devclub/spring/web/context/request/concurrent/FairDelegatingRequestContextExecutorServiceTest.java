@@ -0,0 +1,123 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class FairDelegatingRequestContextExecutorServiceTest {
+
+    ServletRequestAttributes large = new ServletRequestAttributes(new MockHttpServletRequest());
+    ServletRequestAttributes small = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    ExecutorService workers = Executors.newSingleThreadExecutor();
+
+    FairDelegatingRequestContextExecutorService executor = new FairDelegatingRequestContextExecutorService(workers, 1);
+
+    CountDownLatch blocked = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(large);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        blocked.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_take_turns_betweenRequests() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        block();
+        for (int i = 1; i <= 5; i++) {
+            String name = "large" + i;
+            executor.execute(() -> order.add(name));
+        }
+        RequestContextHolder.setRequestAttributes(small);
+        executor.execute(() -> order.add("small1"));
+        Future<?> last = executor.submit(() -> order.add("small2"));
+        blocked.countDown();
+        last.get(5L, TimeUnit.SECONDS);
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+        Assertions.assertEquals(
+                Arrays.asList("large1", "small1", "large2", "small2", "large3", "large4", "large5"), order);
+    }
+
+    @Test
+    void should_hold_attrs() throws Exception {
+        Future<RequestAttributes> future = executor.submit(RequestContextHolder::getRequestAttributes);
+        Assertions.assertSame(large, future.get(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_run_queuedTasks_afterShutdown() throws Exception {
+        block();
+        Future<String> queued = executor.submit(() -> "queued");
+        executor.shutdown();
+        Assertions.assertFalse(executor.isTerminated(), "Terminated while queued");
+        blocked.countDown();
+        Assertions.assertEquals("queued", queued.get(5L, TimeUnit.SECONDS));
+        Assertions.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+        Assertions.assertTrue(workers.isShutdown(), "Workers shut down");
+    }
+
+    @Test
+    void should_return_queuedTasks_onShutdownNow() {
+        block();
+        executor.execute(() -> {
+        });
+        RequestContextHolder.setRequestAttributes(small);
+        executor.execute(() -> {
+        });
+        Assertions.assertEquals(2, executor.shutdownNow().size(), "Queued tasks");
+    }
+
+    @Test
+    void should_terminate_afterShutdownNow_withTasksQueuedByWorkers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        FairDelegatingRequestContextExecutorService wide = new FairDelegatingRequestContextExecutorService(pool, 4);
+        CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 4; i++) {
+            wide.execute(() -> {
+                started.countDown();
+                try {
+                    blocked.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Assertions.assertTrue(started.await(5L, TimeUnit.SECONDS), "Started");
+        Assertions.assertEquals(2, wide.shutdownNow().size(), "Tasks queued by workers");
+        Assertions.assertTrue(wide.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+        Assertions.assertTrue(wide.isTerminated(), "Terminated state");
+    }
+
+    private void block() {
+        executor.execute(() -> {
+            try {
+                blocked.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,99 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HashedWheelDelegatingRequestContextScheduledExecutorServiceTest extends BaseRequestContextHolderTest {
+
+    HashedWheelDelegatingRequestContextScheduledExecutorService executor =
+            new HashedWheelDelegatingRequestContextScheduledExecutorService(
+                    Executors.newFixedThreadPool(2), 1L, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_hold_attrs_onSchedule() throws Exception {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        long start = System.nanoTime();
+        ScheduledFuture<RequestAttributes> future =
+                executor.schedule(RequestContextHolder::getRequestAttributes, 20L, TimeUnit.MILLISECONDS);
+        Assertions.assertSame(before, future.get(5L, TimeUnit.SECONDS), "Before and saved");
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20L), "Delayed");
+    }
+
+    @Test
+    void should_run_beyondOneRound() throws Exception {
+        ScheduledFuture<String> future = executor.schedule(() -> "done", 30L, TimeUnit.MILLISECONDS);
+        Assertions.assertEquals("done", future.get(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_not_run_cancelledTask() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(executor.schedule(() -> ran.set(true), 200L, TimeUnit.MILLISECONDS));
+        }
+        futures.forEach(future -> Assertions.assertTrue(future.cancel(false), "Cancelled"));
+        executor.schedule(() -> null, 250L, TimeUnit.MILLISECONDS).get(5L, TimeUnit.SECONDS);
+        Assertions.assertFalse(ran.get(), "Ran");
+        Assertions.assertThrows(CancellationException.class, futures.get(0)::get);
+    }
+
+    @Test
+    void should_repeat_atFixedRate_untilCancelled() throws Exception {
+        CountDownLatch runs = new CountDownLatch(3);
+        AtomicInteger withAttrs = new AtomicInteger();
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        ScheduledFuture<?> future = executor.scheduleAtFixedRate(() -> {
+            if (RequestContextHolder.getRequestAttributes() == before) {
+                withAttrs.incrementAndGet();
+            }
+            runs.countDown();
+        }, 0L, 5L, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(runs.await(5L, TimeUnit.SECONDS), "Runs");
+        future.cancel(false);
+        Assertions.assertTrue(withAttrs.get() >= 3, "Runs with attrs");
+        Assertions.assertThrows(CancellationException.class, future::get);
+    }
+
+    @Test
+    void should_repeat_withFixedDelay() throws Exception {
+        CountDownLatch runs = new CountDownLatch(3);
+        ScheduledFuture<?> future = executor.scheduleWithFixedDelay(runs::countDown, 0L, 5L, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(runs.await(5L, TimeUnit.SECONDS), "Runs");
+        future.cancel(false);
+    }
+
+    @Test
+    void should_run_delayedTasks_afterShutdown() throws Exception {
+        ScheduledFuture<String> delayed = executor.schedule(() -> "done", 10L, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(() -> {
+        }, 10L, 10L, TimeUnit.MILLISECONDS);
+        executor.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class,
+                () -> executor.schedule(() -> null, 1L, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals("done", delayed.get(5L, TimeUnit.SECONDS));
+        Assertions.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+        Assertions.assertTrue(periodic.isCancelled(), "Periodic cancelled");
+    }
+
+}
@@ -0,0 +1,109 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RecyclingRequestContextRunnableRingTest {
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_reuse_wrapper_afterRun() {
+        List<Runnable> submitted = new ArrayList<>();
+        AtomicReference<RequestAttributes> after = new AtomicReference<>(attrs);
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(task -> {
+            submitted.add(task);
+            RequestContextHolder.resetRequestAttributes();
+            try {
+                task.run();
+                after.set(RequestContextHolder.getRequestAttributes());
+            } finally {
+                RequestContextHolder.setRequestAttributes(attrs);
+            }
+        });
+        executor.setWrapperRecycling(1);
+        AtomicReference<RequestAttributes> seen = new AtomicReference<>();
+        executor.execute(() -> seen.set(RequestContextHolder.getRequestAttributes()));
+        Assertions.assertSame(attrs, seen.get(), "Attrs in task");
+        Assertions.assertNull(after.get(), "Attrs after task");
+        executor.execute(() -> {
+        });
+        Assertions.assertSame(submitted.get(0), submitted.get(1), "Recycled");
+    }
+
+    @Test
+    void should_allocate_wrapper_whenRingIsFull() {
+        List<Runnable> queued = new ArrayList<>();
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(queued::add);
+        executor.setWrapperRecycling(1);
+        executor.execute(() -> {
+        });
+        executor.execute(() -> {
+        });
+        Assertions.assertNotSame(queued.get(0), queued.get(1), "Queued wrappers");
+        Assertions.assertInstanceOf(DelegatingRequestContextRunnable.class, queued.get(1), "Allocated");
+    }
+
+    @Test
+    void should_fail_onSecondRun() {
+        RecyclingRequestContextRunnableRing ring = new RecyclingRequestContextRunnableRing(1);
+        Runnable wrapper = ring.acquire(() -> {
+        }, attrs, false);
+        wrapper.run();
+        Assertions.assertThrows(IllegalStateException.class, wrapper::run);
+        Assertions.assertEquals(1, ring.getFreeCount(), "Free");
+    }
+
+    @Test
+    void should_release_wrapper_onRejection() {
+        List<Runnable> accepted = new ArrayList<>();
+        AtomicBoolean reject = new AtomicBoolean(true);
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(task -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException();
+            }
+            accepted.add(task);
+        });
+        executor.setWrapperRecycling(1);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+        executor.execute(() -> {
+        });
+        Assertions.assertFalse(accepted.get(0) instanceof DelegatingRequestContextRunnable, "Recycled");
+    }
+
+    @Test
+    void should_not_recycle_withDeadline() {
+        List<Runnable> queued = new ArrayList<>();
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(queued::add);
+        executor.setWrapperRecycling(4);
+        executor.setDeadlineResolver(attributes -> RequestDeadline.after(1L, TimeUnit.MINUTES));
+        executor.execute(() -> {
+        });
+        Assertions.assertInstanceOf(DeadlineCheckingRunnable.class, queued.get(0), "Deadline wrapper");
+    }
+
+}
@@ -0,0 +1,174 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ReferenceCountedRequestAttributesTest {
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_share_instance_perRequest() {
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+        Assertions.assertSame(counted, ReferenceCountedRequestAttributes.of(attrs), "Of attrs");
+        Assertions.assertSame(counted, ReferenceCountedRequestAttributes.of(counted), "Of counted");
+        Assertions.assertEquals(1, counted.getReferenceCount(), "References");
+    }
+
+    @Test
+    void should_defer_destructionCallbacks_untilLastRelease() {
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+        AtomicBoolean destroyed = new AtomicBoolean();
+        Assertions.assertTrue(counted.retain(), "Retained");
+        counted.registerDestructionCallback("bean", () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+        attrs.requestCompleted();
+        Assertions.assertFalse(destroyed.get(), "Destroyed after request");
+        counted.release();
+        Assertions.assertTrue(destroyed.get(), "Destroyed after task");
+        Assertions.assertFalse(counted.retain(), "Retained after destruction");
+    }
+
+    @Test
+    void should_defer_destructionCallbacks_registeredOnRequest_beforeRetain() {
+        AtomicBoolean destroyedBefore = new AtomicBoolean();
+        AtomicBoolean destroyedAfter = new AtomicBoolean();
+        attrs.registerDestructionCallback("before", () -> destroyedBefore.set(true), RequestAttributes.SCOPE_REQUEST);
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+        Assertions.assertTrue(counted.retain(), "Retained");
+        attrs.registerDestructionCallback("after", () -> destroyedAfter.set(true), RequestAttributes.SCOPE_REQUEST);
+        attrs.requestCompleted();
+        Assertions.assertFalse(destroyedBefore.get(), "Registered before the task destroyed after request");
+        Assertions.assertTrue(destroyedAfter.get(), "Registered after the task destroyed after request");
+        counted.release();
+        Assertions.assertTrue(destroyedBefore.get(), "Registered before the task destroyed after task");
+    }
+
+    @Test
+    void should_detach_requestAttributes_onRequestCompleted() {
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+        counted.retain();
+        counted.setAttribute("name", "value", RequestAttributes.SCOPE_REQUEST);
+        attrs.requestCompleted();
+        Assertions.assertEquals("value", counted.getAttribute("name", RequestAttributes.SCOPE_REQUEST), "Detached");
+        counted.setAttribute("other", "value", RequestAttributes.SCOPE_REQUEST);
+        Assertions.assertEquals("value", counted.getAttribute("other", RequestAttributes.SCOPE_REQUEST), "Set after request");
+        Assertions.assertArrayEquals(new String[]{"name", "other"}, Arrays.stream(
+                counted.getAttributeNames(RequestAttributes.SCOPE_REQUEST)).sorted().toArray(), "Names");
+        counted.release();
+    }
+
+    @Test
+    void should_fail_onReleaseWithoutReference() {
+        ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+        counted.release();
+        Assertions.assertThrows(IllegalStateException.class, counted::release);
+    }
+
+    @Test
+    void should_hold_request_untilTaskCompletes() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeferRequestDestruction(true);
+            CountDownLatch requestCompleted = new CountDownLatch(1);
+            AtomicBoolean destroyed = new AtomicBoolean();
+            Future<Object> future = wrapped.submit(() -> {
+                requestCompleted.await(5L, TimeUnit.SECONDS);
+                RequestAttributes current = RequestContextHolder.currentRequestAttributes();
+                current.registerDestructionCallback("bean", () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+                current.setAttribute("bean", "value", RequestAttributes.SCOPE_REQUEST);
+                return current.getAttribute("bean", RequestAttributes.SCOPE_REQUEST);
+            });
+            attrs.requestCompleted();
+            requestCompleted.countDown();
+            Assertions.assertEquals("value", future.get(), "Attribute after request");
+            Assertions.assertTrue(destroyed.get(), "Destroyed after task");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_release_rejectedTask() {
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        wrapped.setDeferRequestDestruction(true);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> wrapped.execute(() -> {
+        }));
+        Assertions.assertEquals(1, ReferenceCountedRequestAttributes.of(attrs).getReferenceCount(), "References");
+    }
+
+    @Test
+    void should_release_notStartedTasks_onInvokeAny() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeferRequestDestruction(true);
+            wrapped.invokeAny(List.of(() -> "first", () -> "second", () -> "third"));
+            real.shutdown();
+            Assertions.assertTrue(real.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+            Assertions.assertEquals(1, ReferenceCountedRequestAttributes.of(attrs).getReferenceCount(), "References");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_release_taskCancelled_beforeStart() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeferRequestDestruction(true);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> busy = wrapped.submit(() -> {
+                release.await(5L, TimeUnit.SECONDS);
+                return null;
+            });
+            Future<?> queued = wrapped.submit(() -> {
+            });
+            CompletableFuture<Void> completable = wrapped.submitCompletable(() -> {
+            });
+            ReferenceCountedRequestAttributes counted = ReferenceCountedRequestAttributes.of(attrs);
+            Assertions.assertEquals(4, counted.getReferenceCount(), "References while queued");
+            Assertions.assertTrue(queued.cancel(false), "Cancelled");
+            Assertions.assertTrue(completable.cancel(false), "Cancelled completable");
+            Assertions.assertEquals(2, counted.getReferenceCount(), "References after cancel");
+            release.countDown();
+            busy.get(5L, TimeUnit.SECONDS);
+            real.shutdown();
+            Assertions.assertTrue(real.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+            Assertions.assertEquals(1, counted.getReferenceCount(), "References");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RequestBulkheadTest {
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    ExecutorService real = Executors.newFixedThreadPool(4);
+
+    DelegatingRequestContextExecutorService executor = new DelegatingRequestContextExecutorService(real);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+        executor.setMaxConcurrencyPerRequest(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        real.shutdownNow();
+    }
+
+    @Test
+    void should_limit_runningTasks_perRequest() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5L, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(2, maxRunning.get(), "Max running");
+    }
+
+    @Test
+    void should_queue_excessTasks_inRequestQueue() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(executor.submit(() -> {
+                blocked.await(5L, TimeUnit.SECONDS);
+                return null;
+            }));
+        }
+        RequestBulkhead bulkhead = executor.bulkhead();
+        Assertions.assertEquals(3, bulkhead.getQueuedCount(), "Queued");
+        blocked.countDown();
+        for (Future<?> future : futures) {
+            future.get(5L, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(0, bulkhead.getQueuedCount(), "Queued after completion");
+    }
+
+    @Test
+    void should_keep_bulkhead_acrossGc_whileTasksRun() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> {
+                blocked.await(5L, TimeUnit.SECONDS);
+                return null;
+            }));
+        }
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        AtomicInteger started = new AtomicInteger();
+        futures.add(executor.submit(started::incrementAndGet));
+        Assertions.assertEquals(1, executor.bulkhead().getQueuedCount(), "Queued after GC");
+        Assertions.assertEquals(0, started.get(), "Started over the limit");
+        blocked.countDown();
+        for (Future<?> future : futures) {
+            future.get(5L, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(1, started.get(), "Started");
+    }
+
+    @Test
+    void should_not_starve_otherRequests() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                try {
+                    blocked.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            Assertions.assertEquals("other", executor.submit(() -> "other").get(5L, TimeUnit.SECONDS));
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    void should_not_limit_nestedTasks() throws Exception {
+        executor.setMaxConcurrencyPerRequest(1);
+        Future<String> outer = executor.submit(() -> executor.submit(() -> "nested").get(5L, TimeUnit.SECONDS));
+        Assertions.assertEquals("nested", outer.get(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_not_limit_tasks_submittedWithSnapshot() throws Exception {
+        executor.setCaptureStrategy(new SnapshotRequestAttributesCaptureStrategy(Set.of(), Set.of(), Set.of()));
+        Future<String> outer = executor.submit(() -> executor.submit(() -> "nested").get(5L, TimeUnit.SECONDS));
+        Assertions.assertEquals("nested", outer.get(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_limit_invokeAll() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Callable<Integer> task = () -> {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            Thread.sleep(5L);
+            running.decrementAndGet();
+            return current;
+        };
+        List<Future<Integer>> futures = executor.invokeAll(Collections.nCopies(10, task));
+        Assertions.assertEquals(10, futures.size(), "Futures");
+        for (Future<Integer> future : futures) {
+            Assertions.assertTrue(future.isDone(), "Done");
+        }
+        Assertions.assertEquals(2, maxRunning.get(), "Max running");
+    }
+
+    @Test
+    void should_run_queuedTasks_afterShutdown() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.setMaxConcurrencyPerRequest(1);
+        Future<?> running = executor.submit(() -> {
+            blocked.await(5L, TimeUnit.SECONDS);
+            return null;
+        });
+        Future<String> queued = executor.submit(() -> "queued");
+        executor.shutdown();
+        blocked.countDown();
+        running.get(5L, TimeUnit.SECONDS);
+        Assertions.assertEquals("queued", queued.get(5L, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,68 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RequestContextExecutorMetricsTest extends BaseRequestContextHolderTest {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+    RequestContextExecutorMetrics metrics = new RequestContextExecutorMetrics(registry, "test");
+
+    @Test
+    void should_time_task() {
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(Runnable::run);
+        executor.setMetrics(metrics);
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        AtomicReference<RequestAttributes> saved = new AtomicReference<>();
+        executor.execute(() -> saved.set(RequestContextHolder.getRequestAttributes()));
+        Assertions.assertSame(before, saved.get(), "Before and saved");
+        Assertions.assertEquals(1L, registry.get("request.context.executor.queued").tag("name", "test").timer().count(), "Queued");
+        Assertions.assertEquals(1L, registry.get("request.context.executor.execution").timer().count(), "Execution");
+        Assertions.assertEquals(1L, registry.get("request.context.executor.context").timer().count(), "Context");
+    }
+
+    @Test
+    void should_time_execution_apartFromContext() throws Exception {
+        metrics.instrument(() -> {
+            TimeUnit.MILLISECONDS.sleep(5L);
+            return null;
+        }, task -> task).call();
+        Assertions.assertTrue(registry.get("request.context.executor.execution").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 5.0, "Execution time");
+        Assertions.assertTrue(registry.get("request.context.executor.context").timer()
+                .totalTime(TimeUnit.MILLISECONDS) < 5.0, "Context time");
+    }
+
+    @Test
+    void should_count_taskWithoutContext() {
+        RequestContextHolder.resetRequestAttributes();
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(Runnable::run);
+        executor.setMetrics(metrics);
+        executor.setContextOptional(true);
+        executor.execute(() -> {
+        });
+        Assertions.assertEquals(1.0, registry.get("request.context.executor.without.context").counter().count(), "Without context");
+        Assertions.assertEquals(0L, registry.get("request.context.executor.execution").timer().count(), "Execution");
+    }
+
+    @Test
+    void should_count_rejected() {
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        executor.setMetrics(metrics);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+        Assertions.assertEquals(1.0, registry.get("request.context.executor.rejected").counter().count(), "Rejected");
+    }
+
+}
@@ -0,0 +1,95 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class RequestContextParallelTest {
+
+    ServletRequestAttributes attrs = new ServletRequestAttributes(new MockHttpServletRequest());
+
+    ExecutorService real = Executors.newFixedThreadPool(4);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        real.shutdownNow();
+    }
+
+    @Test
+    void should_map_inOrder_withRequestContext() throws Exception {
+        RequestContextParallel parallel = new RequestContextParallel(new DelegatingRequestContextExecutorService(real), 4);
+        List<Integer> elements = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        Set<RequestAttributes> seen = ConcurrentHashMap.newKeySet();
+        List<Integer> results = parallel.map(elements, element -> {
+            seen.add(RequestContextHolder.currentRequestAttributes());
+            return element * 2;
+        });
+        Assertions.assertEquals(elements.stream().map(element -> element * 2).collect(Collectors.toList()),
+                results, "Results");
+        Assertions.assertEquals(Set.of(attrs), seen, "Request attributes");
+    }
+
+    @Test
+    void should_propagate_requestContext_throughPlainExecutor() throws Exception {
+        RequestContextParallel parallel = new RequestContextParallel(real, 4);
+        parallel.setMinChunkSize(16);
+        Set<RequestAttributes> seen = ConcurrentHashMap.newKeySet();
+        List<String> results = parallel.map(Stream.of("a", "b", "c").flatMap(s -> Stream.generate(() -> s).limit(100)),
+                element -> {
+                    seen.add(RequestContextHolder.currentRequestAttributes());
+                    return element.toUpperCase();
+                });
+        Assertions.assertEquals(300, results.size(), "Results");
+        Assertions.assertEquals("A", results.get(0), "First");
+        Assertions.assertEquals("C", results.get(299), "Last");
+        Assertions.assertEquals(Set.of(attrs), seen, "Request attributes");
+    }
+
+    @Test
+    void should_stop_takingChunks_onFirstFailure() {
+        RequestContextParallel parallel = new RequestContextParallel(real, 4);
+        AtomicInteger processed = new AtomicInteger();
+        IllegalArgumentException failure = new IllegalArgumentException("Invalid row");
+        List<Integer> elements = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () ->
+                parallel.forEach(elements, element -> {
+                    processed.incrementAndGet();
+                    if (element == 10) {
+                        throw failure;
+                    }
+                }));
+        Assertions.assertSame(failure, e.getCause(), "Cause");
+        Assertions.assertTrue(processed.get() < elements.size(), "Processed: " + processed.get());
+    }
+
+    @Test
+    void should_process_onCallingThread_whenExecutorRejects() throws Exception {
+        real.shutdown();
+        RequestContextParallel parallel = new RequestContextParallel(real, 4);
+        List<Integer> results = parallel.map(List.of(1, 2, 3), element -> element + 1);
+        Assertions.assertEquals(List.of(2, 3, 4), results, "Results");
+    }
+
+}
@@ -0,0 +1,196 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RequestDeadlineTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    ServletRequestAttributes attrs = new ServletRequestAttributes(request);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_resolve_fromHeader_once() {
+        request.addHeader("X-Request-Timeout", "60000");
+        RequestDeadline deadline = RequestDeadline.resolve(attrs, RequestDeadlineResolver.header("X-Request-Timeout"));
+        Assertions.assertNotNull(deadline, "Deadline");
+        Assertions.assertTrue(deadline.remaining(TimeUnit.SECONDS) > 50L, "Remaining");
+        Assertions.assertSame(deadline, RequestDeadline.resolve(attrs, attributes -> null), "Cached");
+        Assertions.assertSame(deadline, RequestDeadline.current(), "Current");
+    }
+
+    @Test
+    void should_resolve_onEachCall_forSnapshot() {
+        RequestAttributes snapshot = new SnapshotRequestAttributes(Map.of(), Map.of(), Map.of(), null);
+        RequestDeadline deadline = RequestDeadline.after(1L, TimeUnit.MINUTES);
+        Assertions.assertSame(deadline, RequestDeadline.resolve(snapshot, attributes -> deadline), "Resolved");
+        Assertions.assertNull(RequestDeadline.resolve(snapshot, attributes -> null), "Not kept");
+    }
+
+    @Test
+    void should_resolve_nothing_fromInvalidHeader() {
+        request.addHeader("X-Request-Timeout", "soon");
+        Assertions.assertNull(RequestDeadlineResolver.header("X-Request-Timeout").resolve(attrs));
+    }
+
+    @Test
+    void should_resolve_fromAttribute() {
+        RequestDeadlineResolver resolver = RequestDeadlineResolver.attribute("timeout");
+        Assertions.assertNull(resolver.resolve(attrs), "Without attribute");
+        request.setAttribute("timeout", Duration.ofMinutes(1L));
+        Assertions.assertTrue(resolver.resolve(attrs).remaining(TimeUnit.SECONDS) > 50L, "Duration");
+        request.setAttribute("timeout", 0L);
+        Assertions.assertTrue(resolver.resolve(attrs).isExpired(), "Millis");
+    }
+
+    @Test
+    void should_resolve_fromAsyncTimeout_orElse() {
+        request.setAsyncSupported(true);
+        request.startAsync(request, new MockHttpServletResponse()).setTimeout(60000L);
+        RequestDeadlineResolver resolver = RequestDeadlineResolver.header("X-Request-Timeout")
+                .orElse(RequestDeadlineResolver.asyncTimeout());
+        Assertions.assertTrue(resolver.resolve(attrs).remaining(TimeUnit.SECONDS) > 50L, "Remaining");
+    }
+
+    @Test
+    void should_fail_onSubmit_afterDeadline() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DelegatingRequestContextExecutor wrapped = new DelegatingRequestContextExecutor(
+                task -> Assertions.fail("Submitted"));
+        wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(0L, TimeUnit.MILLISECONDS));
+        wrapped.setMetrics(new RequestContextExecutorMetrics(registry, "test"));
+        Assertions.assertThrows(RequestDeadlineExceededException.class, () -> wrapped.execute(() -> {
+        }));
+        Assertions.assertEquals(1.0, registry.get("request.context.executor.expired").counter().count(), "Expired");
+    }
+
+    @Test
+    void should_fail_onRun_whenDeadlinePassesInQueue() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch blocked = new CountDownLatch(1);
+            real.execute(() -> {
+                try {
+                    blocked.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(50L, TimeUnit.MILLISECONDS));
+            Future<String> future = wrapped.submit(() -> "ran");
+            Thread.sleep(100L);
+            blocked.countDown();
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+            Assertions.assertInstanceOf(RequestDeadlineExceededException.class, e.getCause());
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_skip_executedTask_whenDeadlinePassesInQueue() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService real = Executors.newSingleThreadExecutor(task -> {
+            threads.incrementAndGet();
+            return new Thread(task);
+        });
+        try {
+            CountDownLatch blocked = block(real);
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(50L, TimeUnit.MILLISECONDS));
+            wrapped.setMetrics(new RequestContextExecutorMetrics(registry, "test"));
+            AtomicBoolean ran = new AtomicBoolean();
+            wrapped.execute(() -> ran.set(true));
+            Thread.sleep(100L);
+            blocked.countDown();
+            Assertions.assertEquals("next", real.submit(() -> "next").get(5L, TimeUnit.SECONDS), "Next task");
+            Assertions.assertFalse(ran.get(), "Ran");
+            Assertions.assertEquals(1, threads.get(), "Threads");
+            Assertions.assertEquals(1.0, registry.get("request.context.executor.expired").counter().count(), "Expired");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_return_fromInvokeAllBatched_whenDeadlinePassesInQueue() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch blocked = block(real);
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(100L, TimeUnit.MILLISECONDS));
+            List<Future<String>> futures = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5L), () -> {
+                RequestContextHolder.setRequestAttributes(attrs);
+                return wrapped.invokeAllBatched(List.<Callable<String>>of(() -> "first", () -> "second"), 1);
+            });
+            Assertions.assertTrue(futures.stream().allMatch(Future::isCancelled), "Cancelled");
+            blocked.countDown();
+            Assertions.assertEquals("next", real.submit(() -> "next").get(5L, TimeUnit.SECONDS), "Next task");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_share_deadline_withNestedTasks() throws Exception {
+        ExecutorService real = Executors.newFixedThreadPool(2);
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setDeadlineResolver(attributes -> RequestDeadline.after(1L, TimeUnit.MINUTES));
+            Future<Future<RequestDeadline>> outer = wrapped.submit(
+                    () -> wrapped.submit(RequestDeadline::current));
+            RequestDeadline deadline = RequestDeadline.of(attrs);
+            Assertions.assertNotNull(deadline, "Deadline");
+            Assertions.assertSame(deadline, outer.get().get(), "Nested deadline");
+            Assertions.assertSame(deadline, RequestContextHolder.currentRequestAttributes()
+                    .getAttribute(RequestDeadline.class.getName(), RequestAttributes.SCOPE_REQUEST), "Attribute");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    private static CountDownLatch block(ExecutorService executor) {
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return blocked;
+    }
+
+}
@@ -0,0 +1,228 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.AsyncContext;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class RequestTaskRegistryTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    ServletRequestAttributes attrs = new ServletRequestAttributes(request);
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_cancel_outstandingTasks_onRequestCompleted() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            wrapped.setCancelMayInterruptIfRunning(true);
+            CountDownLatch started = new CountDownLatch(1);
+            AtomicBoolean interrupted = new AtomicBoolean();
+            Future<?> running = wrapped.submit(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(5L));
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            });
+            Future<?> queued = wrapped.submit(() -> {
+            });
+            Assertions.assertTrue(started.await(5L, TimeUnit.SECONDS), "Started");
+            attrs.requestCompleted();
+            Assertions.assertTrue(running.isCancelled(), "Running cancelled");
+            Assertions.assertTrue(queued.isCancelled(), "Queued cancelled");
+            real.shutdown();
+            Assertions.assertTrue(real.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+            Assertions.assertTrue(interrupted.get(), "Interrupted");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_cancel_scheduledTasks_onRequestCompleted() {
+        ScheduledExecutorService real = Executors.newSingleThreadScheduledExecutor();
+        try {
+            DelegatingRequestContextScheduledExecutorService wrapped =
+                    new DelegatingRequestContextScheduledExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            ScheduledFuture<?> timeout = wrapped.schedule(() -> {
+            }, 1L, TimeUnit.MINUTES);
+            attrs.requestCompleted();
+            Assertions.assertTrue(timeout.isCancelled(), "Cancelled");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_not_track_withoutCancelOnRequestCompletion() {
+        ScheduledExecutorService real = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ScheduledFuture<?> timeout = new DelegatingRequestContextScheduledExecutorService(real).schedule(() -> {
+            }, 1L, TimeUnit.MINUTES);
+            attrs.requestCompleted();
+            Assertions.assertFalse(timeout.isCancelled(), "Cancelled");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_cancel_whenAsyncProcessingCompletes() {
+        request.setAsyncSupported(true);
+        AsyncContext async = request.startAsync(request, new MockHttpServletResponse());
+        ScheduledExecutorService real = Executors.newSingleThreadScheduledExecutor();
+        try {
+            DelegatingRequestContextScheduledExecutorService wrapped =
+                    new DelegatingRequestContextScheduledExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            ScheduledFuture<?> timeout = wrapped.schedule(() -> {
+            }, 1L, TimeUnit.MINUTES);
+            attrs.requestCompleted();
+            Assertions.assertFalse(timeout.isCancelled(), "Cancelled after request thread");
+            async.complete();
+            Assertions.assertTrue(timeout.isCancelled(), "Cancelled after async processing");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_defer_untilAsyncProcessingCompletes_whenStartedAfterSubmit() {
+        request.setAsyncSupported(true);
+        ScheduledExecutorService real = Executors.newSingleThreadScheduledExecutor();
+        try {
+            DelegatingRequestContextScheduledExecutorService wrapped =
+                    new DelegatingRequestContextScheduledExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            ScheduledFuture<?> timeout = wrapped.schedule(() -> {
+            }, 1L, TimeUnit.MINUTES);
+            AsyncContext async = request.startAsync(request, new MockHttpServletResponse());
+            attrs.requestCompleted();
+            Assertions.assertFalse(timeout.isCancelled(), "Cancelled after request thread");
+            async.complete();
+            Assertions.assertTrue(timeout.isCancelled(), "Cancelled after async processing");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_release_request_ofCancelledTasks_whenDeferRequestDestruction() {
+        ScheduledExecutorService real = Executors.newSingleThreadScheduledExecutor();
+        try {
+            DelegatingRequestContextScheduledExecutorService wrapped =
+                    new DelegatingRequestContextScheduledExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            wrapped.setDeferRequestDestruction(true);
+            AtomicBoolean destroyed = new AtomicBoolean();
+            wrapped.schedule(() -> {
+            }, 1L, TimeUnit.MINUTES);
+            ReferenceCountedRequestAttributes.of(attrs).registerDestructionCallback("bean",
+                    () -> destroyed.set(true), RequestAttributes.SCOPE_REQUEST);
+            attrs.requestCompleted();
+            Assertions.assertTrue(destroyed.get(), "Destroyed");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_purge_completedFutures() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            for (int i = 0; i < 100; i++) {
+                wrapped.submit(() -> {
+                }).get();
+            }
+            Assertions.assertEquals(0, RequestTaskRegistry.of(attrs).getOutstandingCount(), "Outstanding");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_cancel_futureAdded_afterRequestCompleted() {
+        RequestTaskRegistry registry = RequestTaskRegistry.of(attrs);
+        attrs.requestCompleted();
+        Future<?> future = new FutureTask<>(() -> null);
+        registry.add(future, null, false);
+        Assertions.assertTrue(future.isCancelled(), "Cancelled");
+    }
+
+    @Test
+    void should_cancel_taskSubmitted_afterRequestCompleted() throws Exception {
+        ExecutorService real = Executors.newSingleThreadExecutor();
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setCancelOnRequestCompletion(true);
+            CountDownLatch blocked = new CountDownLatch(1);
+            real.execute(() -> {
+                try {
+                    blocked.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            attrs.requestCompleted();
+            AtomicBoolean ran = new AtomicBoolean();
+            Future<?> future = wrapped.submit(() -> ran.set(true));
+            Assertions.assertTrue(future.isCancelled(), "Cancelled");
+            blocked.countDown();
+            real.shutdown();
+            Assertions.assertTrue(real.awaitTermination(5L, TimeUnit.SECONDS), "Terminated");
+            Assertions.assertFalse(ran.get(), "Ran");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_not_track_tasks_submittedWithSnapshot() throws Exception {
+        ExecutorService real = Executors.newFixedThreadPool(2);
+        try {
+            DelegatingRequestContextExecutorService wrapped = new DelegatingRequestContextExecutorService(real);
+            wrapped.setCaptureStrategy(new SnapshotRequestAttributesCaptureStrategy(Set.of(), Set.of(), Set.of()));
+            wrapped.setCancelOnRequestCompletion(true);
+            AtomicBoolean ran = new AtomicBoolean();
+            Future<Future<?>> outer = wrapped.submit(() -> wrapped.submit(() -> ran.set(true)));
+            outer.get(5L, TimeUnit.SECONDS).get(5L, TimeUnit.SECONDS);
+            Assertions.assertTrue(ran.get(), "Nested task ran");
+        } finally {
+            real.shutdownNow();
+        }
+    }
+
+}
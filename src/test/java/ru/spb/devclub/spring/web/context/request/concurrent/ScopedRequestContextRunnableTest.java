@@ -0,0 +1,76 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ScopedRequestContextRunnableTest extends BaseRequestContextHolderTest {
+
+    RequestAttributes custom = Mockito.mock(RequestAttributes.class);
+    AtomicReference<RequestAttributes> scoped = new AtomicReference<>();
+    AtomicReference<RequestAttributes> holder = new AtomicReference<>();
+
+    @BeforeEach
+    void setUpHolders() {
+        scoped.set(null);
+        holder.set(null);
+    }
+
+    void holdAttributes() {
+        scoped.set(ScopedRequestContext.getRequestAttributes());
+        holder.set(RequestContextHolder.getRequestAttributes());
+    }
+
+    @Test
+    void should_bind_scoped_only() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        new ScopedRequestContextRunnable(this::holdAttributes, custom, false).run();
+        Assertions.assertSame(custom, scoped.get(), "Custom and scoped");
+        Assertions.assertSame(before, holder.get(), "Before and holder");
+        Assertions.assertSame(before, ScopedRequestContext.getRequestAttributes(), "Before and after");
+    }
+
+    @Test
+    void should_bind_scoped_withHolder() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        new ScopedRequestContextRunnable(this::holdAttributes, custom, true).run();
+        Assertions.assertSame(custom, scoped.get(), "Custom and scoped");
+        Assertions.assertSame(custom, holder.get(), "Custom and holder");
+        Assertions.assertSame(before, RequestContextHolder.getRequestAttributes(), "Before and after");
+    }
+
+    @Test
+    void should_restore_nested() {
+        RequestAttributes inner = Mockito.mock(RequestAttributes.class);
+        AtomicReference<RequestAttributes> afterInner = new AtomicReference<>();
+        new ScopedRequestContextRunnable(() -> {
+            new ScopedRequestContextRunnable(this::holdAttributes, inner, false).run();
+            afterInner.set(ScopedRequestContext.getRequestAttributes());
+        }, custom, false).run();
+        Assertions.assertSame(inner, scoped.get(), "Inner and scoped");
+        Assertions.assertSame(custom, afterInner.get(), "Custom and after inner");
+    }
+
+    @Test
+    void should_call_scoped() throws Exception {
+        Callable<RequestAttributes> callable = new ScopedRequestContextCallable<>(
+                ScopedRequestContext::getRequestAttributes, custom, false);
+        Assertions.assertSame(custom, callable.call(), "Custom and called");
+    }
+
+    @Test
+    void should_wrap_byPropagationMode() {
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(
+                command -> Assertions.assertInstanceOf(ScopedRequestContextRunnable.class, command));
+        executor.setPropagationMode(PropagationMode.SCOPED_VALUE);
+        executor.execute(this::holdAttributes);
+    }
+
+}
@@ -0,0 +1,78 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+class SnapshotRequestAttributesCaptureStrategyTest {
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    RequestAttributesCaptureStrategy strategy = new SnapshotRequestAttributesCaptureStrategy(
+            Set.of("X-Request-Id"), Set.of("q"), Set.of("user"));
+
+    @BeforeEach
+    void setUp() {
+        request.addHeader("X-Request-Id", "42");
+        request.addHeader("Authorization", "secret");
+        request.addParameter("q", "a", "b");
+        request.addParameter("page", "1");
+        request.setAttribute("user", "alex");
+        request.setAttribute("body", new byte[0]);
+    }
+
+    @Test
+    void should_copy_allowlist() {
+        RequestAttributes captured = strategy.capture(new ServletRequestAttributes(request));
+        SnapshotRequestAttributes snapshot = Assertions.assertInstanceOf(SnapshotRequestAttributes.class, captured);
+        Assertions.assertEquals("42", snapshot.getHeader("x-request-id"), "Header");
+        Assertions.assertNull(snapshot.getHeader("Authorization"), "Not allowed header");
+        Assertions.assertEquals(List.of("a", "b"), List.of(snapshot.getParameterValues("q")), "Parameter");
+        Assertions.assertNull(snapshot.getParameter("page"), "Not allowed parameter");
+        Assertions.assertEquals("alex", snapshot.getAttribute("user", RequestAttributes.SCOPE_REQUEST), "Attribute");
+        Assertions.assertNull(snapshot.getAttribute("body", RequestAttributes.SCOPE_REQUEST), "Not allowed attribute");
+    }
+
+    @Test
+    void should_not_reflect_changes() {
+        RequestAttributes captured = strategy.capture(new ServletRequestAttributes(request));
+        request.setAttribute("user", "grig");
+        request.removeHeader("X-Request-Id");
+        Assertions.assertEquals("alex", captured.getAttribute("user", RequestAttributes.SCOPE_REQUEST), "Attribute");
+        Assertions.assertEquals("42", ((SnapshotRequestAttributes) captured).getHeader("X-Request-Id"), "Header");
+    }
+
+    @Test
+    void should_be_immutable() {
+        RequestAttributes captured = strategy.capture(new ServletRequestAttributes(request));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> captured.setAttribute("user", "grig", RequestAttributes.SCOPE_REQUEST));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> captured.removeAttribute("user", RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Test
+    void should_keep_snapshot() {
+        RequestAttributes captured = strategy.capture(new ServletRequestAttributes(request));
+        Assertions.assertSame(captured, strategy.capture(captured), "Nested snapshot");
+    }
+
+    @Test
+    void should_run_with_snapshot() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        AtomicReference<RequestAttributes> holder = new AtomicReference<>();
+        DelegatingRequestContextExecutor executor = new DelegatingRequestContextExecutor(Runnable::run);
+        executor.setCaptureStrategy(strategy);
+        executor.execute(() -> holder.set(RequestContextHolder.getRequestAttributes()));
+        Assertions.assertInstanceOf(SnapshotRequestAttributes.class, holder.get(), "Bound attrs");
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+}
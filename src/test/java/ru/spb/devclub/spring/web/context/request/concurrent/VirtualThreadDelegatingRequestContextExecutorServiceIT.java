@@ -0,0 +1,53 @@
+package ru.spb.devclub.spring.web.context.request.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ExecutorService;
+
+class VirtualThreadDelegatingRequestContextExecutorServiceIT {
+
+    RequestAttributes attrs = Mockito.mock(RequestAttributes.class);
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        RequestContextHolder.setRequestAttributes(attrs, true);
+        executor = new VirtualThreadDelegatingRequestContextExecutorService("test-");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_run_onVirtualThread() throws Exception {
+        Thread thread = executor.submit(Thread::currentThread).get();
+        Assertions.assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread), "Virtual");
+        Assertions.assertTrue(thread.getName().startsWith("test-"), "Name");
+    }
+
+    @Test
+    void should_hold_attrs() throws Exception {
+        RequestAttributes saved = executor.submit(RequestContextHolder::getRequestAttributes).get();
+        Assertions.assertSame(attrs, saved, "Before and saved");
+    }
+
+    @Test
+    void should_not_inherit_attrs() throws Exception {
+        ExecutorService raw = VirtualThreads.newThreadPerTaskExecutor("raw-");
+        try {
+            Assertions.assertNull(raw.submit(RequestContextHolder::getRequestAttributes).get(), "Inherited");
+        } finally {
+            raw.shutdownNow();
+        }
+    }
+
+}
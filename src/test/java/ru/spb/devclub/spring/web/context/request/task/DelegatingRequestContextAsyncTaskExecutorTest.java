@@ -3,6 +3,10 @@ package ru.spb.devclub.spring.web.context.request.task;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
 import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextCallable;
 
@@ -39,6 +43,15 @@ class DelegatingRequestContextAsyncTaskExecutorTest extends BaseRequestContextHo
         wrap(executor).submit(callable);
     }
 
+    @Test
+    void should_hold_attrs_onSubmitCompletable() {
+        RequestAttributes before = RequestContextHolder.getRequestAttributes();
+        DelegatingRequestContextAsyncTaskExecutor wrapped =
+                new DelegatingRequestContextAsyncTaskExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+        RequestAttributes saved = wrapped.submitCompletable(RequestContextHolder::getRequestAttributes).join();
+        Assertions.assertSame(before, saved, "Before and saved");
+    }
+
     protected static class TestAsyncTaskExecutor
             extends DelegatingRequestContextTaskExecutorTest.TestTaskExecutor
             implements AsyncTaskExecutor {
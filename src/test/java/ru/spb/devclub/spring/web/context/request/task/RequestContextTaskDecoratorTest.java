@@ -0,0 +1,43 @@
+package ru.spb.devclub.spring.web.context.request.task;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.spb.devclub.spring.web.context.request.BaseRequestContextHolderTest;
+import ru.spb.devclub.spring.web.context.request.concurrent.DelegatingRequestContextRunnable;
+
+class RequestContextTaskDecoratorTest extends BaseRequestContextHolderTest {
+
+    RequestContextTaskDecorator decorator = new RequestContextTaskDecorator();
+
+    @Test
+    void should_wrap_runnable() {
+        Assertions.assertInstanceOf(DelegatingRequestContextRunnable.class, decorator.decorate(() -> {
+        }));
+    }
+
+    @Test
+    void should_passThrough_runnable_withoutAttrs() {
+        RequestContextHolder.resetRequestAttributes();
+        Runnable runnable = () -> {
+        };
+        Assertions.assertSame(runnable, decorator.decorate(runnable));
+    }
+
+    @Test
+    void should_hold_attrs_inThreadPoolTaskExecutor() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setTaskDecorator(decorator);
+        executor.initialize();
+        try {
+            RequestAttributes before = RequestContextHolder.getRequestAttributes();
+            RequestAttributes saved = executor.submitListenable(RequestContextHolder::getRequestAttributes).get();
+            Assertions.assertSame(before, saved, "Before and saved");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}